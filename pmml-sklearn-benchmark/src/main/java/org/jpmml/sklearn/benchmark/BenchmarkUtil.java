@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2023 Villu Ruusmann
+ *
+ * This file is part of JPMML-SkLearn
+ *
+ * JPMML-SkLearn is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-SkLearn is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-SkLearn.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.sklearn.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.jpmml.converter.Schema;
+import org.jpmml.python.PickleUtil;
+import org.jpmml.python.Storage;
+import org.jpmml.python.StorageUtil;
+import org.jpmml.sklearn.SkLearnEncoder;
+import sklearn.Estimator;
+import sklearn2pmml.EstimatorProxy;
+import sklearn2pmml.pipeline.PMMLPipeline;
+
+public class BenchmarkUtil {
+
+	private BenchmarkUtil(){
+	}
+
+	static
+	public byte[] loadPickle(String name) throws IOException {
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+
+		try(InputStream is = BenchmarkUtil.class.getResourceAsStream("/pkl/" + name)){
+
+			if(is == null){
+				throw new IOException("Pickle file " + name + " not found");
+			}
+
+			byte[] buffer = new byte[64 * 1024];
+
+			while(true){
+				int count = is.read(buffer);
+				if(count < 0){
+					break;
+				}
+
+				os.write(buffer, 0, count);
+			}
+		}
+
+		return os.toByteArray();
+	}
+
+	static
+	public Object unpickle(byte[] bytes) throws IOException {
+		// Trigger the registration of Numpy data types
+		new SkLearnEncoder();
+
+		try(Storage storage = StorageUtil.createStorage(new ByteArrayInputStream(bytes))){
+			return PickleUtil.unpickle(storage);
+		}
+	}
+
+	static
+	public PMMLPipeline unpicklePipeline(String name) throws IOException {
+		return (PMMLPipeline)unpickle(loadPickle(name));
+	}
+
+	static
+	public <E extends Estimator> E getFinalEstimator(PMMLPipeline pipeline, Class<? extends E> clazz){
+		Estimator estimator = pipeline.getFinalEstimator();
+
+		if(estimator instanceof EstimatorProxy){
+			EstimatorProxy estimatorProxy = (EstimatorProxy)estimator;
+
+			estimator = estimatorProxy.getEstimator();
+		}
+
+		return clazz.cast(estimator);
+	}
+
+	/**
+	 * <p>
+	 * Converts the pipeline once, and returns the schema that was passed to its final estimator.
+	 * </p>
+	 */
+	static
+	public Schema encodeSchema(PMMLPipeline pipeline){
+		SchemaCapturingEncoder encoder = new SchemaCapturingEncoder();
+
+		pipeline.encodePMML(encoder);
+
+		Schema schema = encoder.getSchema();
+		if(schema == null){
+			throw new IllegalArgumentException();
+		}
+
+		return schema;
+	}
+
+	static
+	private class SchemaCapturingEncoder extends SkLearnEncoder {
+
+		private Schema schema = null;
+
+
+		@Override
+		public Schema createSchema(){
+			Schema schema = super.createSchema();
+
+			this.schema = schema;
+
+			return schema;
+		}
+
+		public Schema getSchema(){
+			return this.schema;
+		}
+	}
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2023 Villu Ruusmann
+ *
+ * This file is part of JPMML-SkLearn
+ *
+ * JPMML-SkLearn is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-SkLearn is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-SkLearn.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.sklearn.benchmark;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.dmg.pmml.DataField;
+import org.dmg.pmml.DataType;
+import org.dmg.pmml.OpType;
+import org.jpmml.converter.Feature;
+import org.jpmml.converter.WildcardFeature;
+import org.jpmml.sklearn.SkLearnEncoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import sklearn.Transformer;
+import sklearn.feature_extraction.text.CountVectorizer;
+import sklearn.pipeline.FeatureUnion;
+import sklearn2pmml.pipeline.PMMLPipeline;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class CountVectorizerBenchmark {
+
+	private CountVectorizer countVectorizer = null;
+
+
+	@Setup
+	public void setup() throws IOException {
+		PMMLPipeline pipeline = BenchmarkUtil.unpicklePipeline("LinearSVCSentiment.pkl");
+
+		List<? extends Transformer> transformers = pipeline.getTransformers();
+
+		FeatureUnion featureUnion = (FeatureUnion)transformers.get(0);
+
+		for(Transformer transformer : featureUnion.getTransformers()){
+
+			if(transformer instanceof CountVectorizer){
+				this.countVectorizer = (CountVectorizer)transformer;
+
+				break;
+			}
+		}
+
+		if(this.countVectorizer == null){
+			throw new IllegalArgumentException();
+		}
+	}
+
+	@Benchmark
+	public List<Feature> encodeFeatures(){
+		SkLearnEncoder encoder = new SkLearnEncoder();
+
+		DataField dataField = encoder.createDataField("Sentence", OpType.CATEGORICAL, DataType.STRING);
+
+		List<Feature> features = Collections.singletonList(new WildcardFeature(encoder, dataField));
+
+		return this.countVectorizer.encodeFeatures(features, encoder);
+	}
+}
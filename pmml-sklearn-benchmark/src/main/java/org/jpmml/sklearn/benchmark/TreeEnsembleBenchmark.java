@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2023 Villu Ruusmann
+ *
+ * This file is part of JPMML-SkLearn
+ *
+ * JPMML-SkLearn is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-SkLearn is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-SkLearn.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.sklearn.benchmark;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.dmg.pmml.MiningFunction;
+import org.dmg.pmml.tree.TreeModel;
+import org.jpmml.converter.Schema;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import sklearn.ensemble.forest.ForestClassifier;
+import sklearn.tree.HasTreeOptions;
+import sklearn.tree.TreeUtil;
+import sklearn2pmml.pipeline.PMMLPipeline;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class TreeEnsembleBenchmark {
+
+	@Param({"false", "true"})
+	public boolean parallel = false;
+
+	private ForestClassifier estimator = null;
+
+	private Schema schema = null;
+
+
+	@Setup
+	public void setup() throws IOException {
+		PMMLPipeline pipeline = BenchmarkUtil.unpicklePipeline("RandomForestAudit.pkl");
+
+		this.estimator = BenchmarkUtil.getFinalEstimator(pipeline, ForestClassifier.class);
+		this.estimator.putOption(HasTreeOptions.OPTION_PARALLEL, this.parallel);
+
+		this.schema = BenchmarkUtil.encodeSchema(pipeline);
+	}
+
+	@Benchmark
+	public List<TreeModel> encodeTreeModelEnsemble(){
+		return TreeUtil.encodeTreeModelEnsemble(this.estimator, MiningFunction.CLASSIFICATION, this.schema);
+	}
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2023 Villu Ruusmann
+ *
+ * This file is part of JPMML-SkLearn
+ *
+ * JPMML-SkLearn is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-SkLearn is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-SkLearn.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.sklearn.benchmark;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.dmg.pmml.MiningFunction;
+import org.dmg.pmml.Visitor;
+import org.dmg.pmml.tree.TreeModel;
+import org.jpmml.converter.Schema;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import sklearn.ensemble.forest.ForestClassifier;
+import sklearn.tree.TreeUtil;
+import sklearn.tree.visitors.TreeModelCompactor;
+import sklearn.tree.visitors.TreeModelFlattener;
+import sklearn.tree.visitors.TreeModelPruner;
+import sklearn2pmml.pipeline.PMMLPipeline;
+
+/**
+ * <p>
+ * Measures the tree model transformers the way TreeUtil#transform chains them.
+ * </p>
+ *
+ * Every transformer mutates trees in place, so a fresh batch of SkLearn-style trees is encoded before every invocation.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 10)
+@Measurement(iterations = 20)
+@State(Scope.Benchmark)
+public class TreeModelTransformerBenchmark {
+
+	@Param({"prune", "compact", "flatten"})
+	public String transformer = null;
+
+	private ForestClassifier estimator = null;
+
+	private Schema schema = null;
+
+	private List<TreeModel> treeModels = null;
+
+
+	@Setup
+	public void setup() throws IOException {
+		PMMLPipeline pipeline = BenchmarkUtil.unpicklePipeline("RandomForestAudit.pkl");
+
+		this.estimator = BenchmarkUtil.getFinalEstimator(pipeline, ForestClassifier.class);
+
+		this.schema = BenchmarkUtil.encodeSchema(pipeline);
+	}
+
+	@Setup(Level.Invocation)
+	public void setupTreeModels(){
+		List<TreeModel> treeModels = TreeUtil.encodeTreeModelEnsemble(this.estimator, MiningFunction.CLASSIFICATION, this.schema);
+
+		switch(this.transformer){
+			case "prune":
+				break;
+			case "compact":
+				apply(new TreeModelPruner(), treeModels);
+				break;
+			case "flatten":
+				apply(new TreeModelPruner(), treeModels);
+				apply(new TreeModelCompactor(), treeModels);
+				break;
+			default:
+				throw new IllegalArgumentException(this.transformer);
+		}
+
+		this.treeModels = treeModels;
+	}
+
+	@Benchmark
+	public List<TreeModel> transform(){
+		Visitor visitor;
+
+		switch(this.transformer){
+			case "prune":
+				visitor = new TreeModelPruner();
+				break;
+			case "compact":
+				visitor = new TreeModelCompactor();
+				break;
+			case "flatten":
+				visitor = new TreeModelFlattener();
+				break;
+			default:
+				throw new IllegalArgumentException(this.transformer);
+		}
+
+		apply(visitor, this.treeModels);
+
+		return this.treeModels;
+	}
+
+	static
+	private void apply(Visitor visitor, List<TreeModel> treeModels){
+
+		for(TreeModel treeModel : treeModels){
+			visitor.applyTo(treeModel);
+		}
+	}
+}
@@ -0,0 +1,261 @@
+/*
+ * Copyright (c) 2023 Villu Ruusmann
+ *
+ * This file is part of JPMML-SkLearn
+ *
+ * JPMML-SkLearn is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-SkLearn is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-SkLearn.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.sklearn.example;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.dmg.pmml.PMML;
+import org.jpmml.python.Storage;
+import org.jpmml.python.StorageUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>
+ * A resident HTTP server, which converts pickle request bodies to PMML response bodies.
+ * </p>
+ *
+ * Conversions are performed on a fixed-size worker pool, and are configured the same way as the command-line application.
+ */
+public class ConversionServer implements HttpHandler {
+
+	private Main main = null;
+
+	private long maxRequestSize;
+
+	private HttpServer server = null;
+
+	private ExecutorService executor = null;
+
+
+	public ConversionServer(Main main, long maxRequestSize){
+		this.main = main;
+		this.maxRequestSize = maxRequestSize;
+	}
+
+	public void start(InetSocketAddress address, int threads) throws IOException {
+		this.executor = Executors.newFixedThreadPool(threads);
+
+		this.server = HttpServer.create(address, 0);
+		this.server.createContext(PATH, this);
+		this.server.setExecutor(this.executor);
+		this.server.start();
+
+		Runtime.getRuntime().addShutdownHook(new Thread(this::stop));
+
+		logger.info("Listening on http://{}:{}{} using {} thread(s)..", address.getHostString(), address.getPort(), PATH, threads);
+	}
+
+	public void stop(){
+
+		if(this.server != null){
+			this.server.stop(0);
+
+			this.server = null;
+		} // End if
+
+		if(this.executor != null){
+			this.executor.shutdown();
+
+			this.executor = null;
+
+			Main.logCaches();
+		}
+	}
+
+	@Override
+	public void handle(HttpExchange exchange) throws IOException {
+
+		try {
+			convert(exchange);
+		} finally {
+			exchange.close();
+		}
+	}
+
+	private void convert(HttpExchange exchange) throws IOException {
+
+		if(!("POST").equals(exchange.getRequestMethod())){
+			sendError(exchange, 405, "Expected a POST request");
+
+			return;
+		}
+
+		String contentLength = exchange.getRequestHeaders().getFirst("Content-Length");
+		if(contentLength != null){
+			long length;
+
+			try {
+				length = Long.parseLong(contentLength.trim());
+			} catch(NumberFormatException nfe){
+				sendError(exchange, 400, "Invalid Content-Length header value \'" + contentLength + "\'");
+
+				return;
+			}
+
+			if(length < 0){
+				sendError(exchange, 400, "Invalid Content-Length header value \'" + contentLength + "\'");
+
+				return;
+			} else
+
+			if(length > this.maxRequestSize){
+				sendError(exchange, 413, "The request body exceeds " + this.maxRequestSize + " bytes");
+
+				return;
+			}
+		}
+
+		Main.Conversion conversion = new Main.Conversion();
+
+		BoundedInputStream is = new BoundedInputStream(exchange.getRequestBody(), this.maxRequestSize);
+
+		Object object;
+
+		try(Storage storage = StorageUtil.createStorage(is)){
+			object = this.main.unpickle(storage, conversion);
+		} catch(Exception e){
+
+			if(is.isExceeded()){
+				sendError(exchange, 413, "The request body exceeds " + this.maxRequestSize + " bytes");
+			} else
+
+			{
+				sendError(exchange, 400, "Failed to parse PKL: " + e);
+			}
+
+			return;
+		}
+
+		PMML pmml;
+
+		try {
+			pmml = this.main.encodePMML(object, conversion);
+		} catch(Exception e){
+			sendError(exchange, 422, "Failed to convert PKL to PMML: " + e);
+
+			return;
+		}
+
+		exchange.getResponseHeaders().set("Content-Type", "application/xml; charset=UTF-8");
+		exchange.sendResponseHeaders(200, 0);
+
+		try(OutputStream os = exchange.getResponseBody()){
+			this.main.marshalPMML(pmml, os, conversion);
+		} catch(Exception e){
+			// Ignored. The response has already been committed, and the error has already been logged
+			return;
+		}
+
+		logger.info("Served PKL to PMML conversion in {} ms.", conversion.getTotalTime());
+	}
+
+	static
+	private void sendError(HttpExchange exchange, int status, String message) throws IOException {
+		byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+
+		exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=UTF-8");
+		exchange.sendResponseHeaders(status, bytes.length);
+
+		try(OutputStream os = exchange.getResponseBody()){
+			os.write(bytes);
+		}
+	}
+
+	static
+	private class BoundedInputStream extends FilterInputStream {
+
+		private long limit;
+
+		private long count = 0L;
+
+		private boolean exceeded = false;
+
+
+		private BoundedInputStream(InputStream is, long limit){
+			super(is);
+
+			this.limit = limit;
+		}
+
+		@Override
+		public int read() throws IOException {
+			int result = super.read();
+
+			if(result != -1){
+				count(1);
+			}
+
+			return result;
+		}
+
+		@Override
+		public int read(byte[] buffer, int offset, int length) throws IOException {
+			int result = super.read(buffer, offset, length);
+
+			if(result != -1){
+				count(result);
+			}
+
+			return result;
+		}
+
+		@Override
+		public long skip(long length) throws IOException {
+			long result = super.skip(length);
+
+			count(result);
+
+			return result;
+		}
+
+		@Override
+		public boolean markSupported(){
+			return false;
+		}
+
+		public boolean isExceeded(){
+			return this.exceeded;
+		}
+
+		private void count(long length) throws IOException {
+			this.count += length;
+
+			if(this.count > this.limit){
+				this.exceeded = true;
+
+				throw new IOException("The request body exceeds " + this.limit + " bytes");
+			}
+		}
+	}
+
+	public static final String PATH = "/convert";
+
+	private static final Logger logger = LoggerFactory.getLogger(ConversionServer.class);
+}
@@ -20,11 +20,27 @@ package org.jpmml.sklearn.example;
 
 import java.io.File;
 import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import com.beust.jcommander.JCommander;
 import com.beust.jcommander.Parameter;
@@ -32,10 +48,13 @@ import com.beust.jcommander.ParameterException;
 import org.dmg.pmml.PMML;
 import org.jpmml.model.metro.MetroJAXBUtil;
 import org.jpmml.python.ClassDictUtil;
-import org.jpmml.python.PickleUtil;
 import org.jpmml.python.Storage;
 import org.jpmml.python.StorageUtil;
+import org.jpmml.sklearn.ContentCache;
+import org.jpmml.sklearn.MappedPickleUtil;
+import org.jpmml.sklearn.Profiler;
 import org.jpmml.sklearn.SkLearnEncoder;
+import org.jpmml.sklearn.TableLocatorUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import sklearn.Estimator;
@@ -54,18 +73,91 @@ public class Main {
 
 	@Parameter (
 		names = {"--pkl-pipeline-input", "--pkl-input"},
-		description = "Pickle input file",
-		required = true
+		description = "Pickle input file"
 	)
 	private File input = null;
 
 	@Parameter (
 		names = {"--pmml-output"},
-		description = "PMML output file",
-		required = true
+		description = "PMML output file"
 	)
 	private File output = null;
 
+	@Parameter (
+		names = {"--pkl-batch-input"},
+		description = "Pickle input directory, glob pattern (eg. \"models/*.pkl\") or manifest file. The manifest file contains one tab-separated pickle input file and PMML output file pair per line"
+	)
+	private String batchInput = null;
+
+	@Parameter (
+		names = {"--pmml-batch-output"},
+		description = "PMML output directory. Defaults to the directory of the pickle input file"
+	)
+	private File batchOutput = null;
+
+	@Parameter (
+		names = {"--batch-report"},
+		description = "Batch report output file. Defaults to the standard output"
+	)
+	private File batchReport = null;
+
+	@Parameter (
+		names = {"--batch-threads"},
+		description = "Number of batch worker threads"
+	)
+	private int batchThreads = Runtime.getRuntime().availableProcessors();
+
+	@Parameter (
+		names = {"--server-port"},
+		description = "Run as a resident conversion server, which listens for pickle POST requests on the specified HTTP port"
+	)
+	private Integer serverPort = null;
+
+	@Parameter (
+		names = {"--server-host"},
+		description = "Server host name or address"
+	)
+	private String serverHost = "localhost";
+
+	@Parameter (
+		names = {"--server-threads"},
+		description = "Number of server worker threads"
+	)
+	private int serverThreads = Runtime.getRuntime().availableProcessors();
+
+	@Parameter (
+		names = {"--server-max-request-size"},
+		description = "Maximum size of the pickle request body in bytes"
+	)
+	private long serverMaxRequestSize = 256L * 1024L * 1024L;
+
+	@Parameter (
+		names = {"--cache-capacity"},
+		description = "Number of parsed models (eg. XGBoost learners, LightGBM GBDTs) to keep in memory for reuse in batch and server modes. Defaults to the value of the \"" + ContentCache.PROPERTY_CAPACITY + "\" system property, or " + Main.DEFAULT_CACHE_CAPACITY
+	)
+	private Integer cacheCapacity = null;
+
+	@Parameter (
+		names = {"--profile"},
+		description = "Write a JSON profile of conversion steps next to the PMML output file",
+		arity = 1
+	)
+	private boolean profile = false;
+
+	@Parameter (
+		names = {"--profile-nodes"},
+		description = "Count the Nodes of tree models in the profile. Requires a full traversal of the model after every profiled step",
+		arity = 1
+	)
+	private boolean profileNodes = false;
+
+	@Parameter (
+		names = {"--memory-map"},
+		description = "Memory-map large Numpy arrays of uncompressed pickle input files, instead of reading them into the Java heap",
+		arity = 1
+	)
+	private boolean memoryMap = false;
+
 	@Parameter (
 		names = {"--X-" + HasTreeOptions.OPTION_COMPACT},
 		description = "Transform SkLearn-style trees to PMML-style trees",
@@ -101,6 +193,13 @@ public class Main {
 	)
 	private Boolean numeric = null;
 
+	@Parameter (
+		names = {"--X-" + HasTreeOptions.OPTION_PARALLEL},
+		description = "Encode trees in parallel",
+		arity = 1
+	)
+	private Boolean parallel = null;
+
 	@Parameter (
 		names = {"--X-" + HasTreeOptions.OPTION_PRUNE},
 		description = "Truncate invariant leaf nodes",
@@ -125,6 +224,10 @@ public class Main {
 
 		try {
 			commander.parse(args);
+
+			if(!main.help){
+				main.validate();
+			}
 		} catch(ParameterException pe){
 			StringBuilder sb = new StringBuilder();
 
@@ -151,18 +254,316 @@ public class Main {
 		main.run();
 	}
 
+	public void validate(){
+
+		if(this.cacheCapacity != null && this.cacheCapacity < 0){
+			throw new ParameterException("Option --cache-capacity must be a non-negative integer");
+		} // End if
+
+		if(this.serverPort != null){
+
+			if(this.input != null || this.output != null || this.batchInput != null){
+				throw new ParameterException("Options --pkl-input, --pmml-output and --pkl-batch-input cannot be combined with option --server-port");
+			} // End if
+
+			if(this.serverThreads < 1){
+				throw new ParameterException("Option --server-threads must be a positive integer");
+			} // End if
+
+			if(this.serverMaxRequestSize < 1L){
+				throw new ParameterException("Option --server-max-request-size must be a positive integer");
+			}
+		} else
+
+		if(this.batchInput != null){
+
+			if(this.input != null || this.output != null){
+				throw new ParameterException("Options --pkl-input and --pmml-output cannot be combined with option --pkl-batch-input");
+			} // End if
+
+			if(this.batchThreads < 1){
+				throw new ParameterException("Option --batch-threads must be a positive integer");
+			}
+		} else
+
+		{
+			if(this.input == null || this.output == null){
+				throw new ParameterException("Options --pkl-input and --pmml-output (or option --pkl-batch-input) are required");
+			}
+		}
+	}
+
 	public void run() throws Exception {
-		SkLearnEncoder encoder = new SkLearnEncoder();
 
+		if(this.serverPort != null){
+			runServer();
+		} else
+
+		if(this.batchInput != null){
+			runBatch();
+		} else
+
+		{
+			convert(new Conversion(this.input, this.output));
+		}
+	}
+
+	private void runServer() throws Exception {
+		// Trigger static initialization before accepting requests
+		new SkLearnEncoder();
+
+		enableCaches();
+
+		ConversionServer server = new ConversionServer(this, this.serverMaxRequestSize);
+
+		server.start(new InetSocketAddress(this.serverHost, this.serverPort), this.serverThreads);
+	}
+
+	private void runBatch() throws Exception {
+		List<Conversion> conversions = loadConversions();
+
+		logger.info("Converting {} PKL file(s) using {} thread(s)..", conversions.size(), this.batchThreads);
+
+		// Trigger static initialization before handing out work
+		new SkLearnEncoder();
+
+		enableCaches();
+
+		ExecutorService executor = Executors.newFixedThreadPool(this.batchThreads);
+
+		long begin = System.currentTimeMillis();
+
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+
+			for(Conversion conversion : conversions){
+				Runnable task = () -> {
+
+					// Errors (eg. StackOverflowError) are specific to the failed conversion, and must not abort the batch
+					try {
+						convert(conversion);
+					} catch(Throwable t){
+						conversion.setException(t);
+					}
+				};
+
+				futures.add(executor.submit(task));
+			}
+
+			for(Future<?> future : futures){
+				future.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+
+		long end = System.currentTimeMillis();
+
+		long failed = conversions.stream()
+			.filter(conversion -> conversion.getException() != null)
+			.count();
+
+		logger.info("Converted {} out of {} PKL file(s) in {} ms.", (conversions.size() - failed), conversions.size(), (end - begin));
+
+		logCaches();
+
+		writeReport(conversions);
+
+		if(failed > 0){
+			throw new IllegalStateException("Failed to convert " + failed + " out of " + conversions.size() + " PKL file(s)");
+		}
+	}
+
+	private List<Conversion> loadConversions() throws IOException {
+		List<Conversion> result = new ArrayList<>();
+
+		File file = new File(this.batchInput);
+
+		// Manifest file
+		if(file.isFile()){
+			File dir = file.getAbsoluteFile().getParentFile();
+
+			List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+			for(String line : lines){
+				line = line.trim();
+
+				if(line.isEmpty() || line.startsWith("#")){
+					continue;
+				}
+
+				String[] paths = line.split("\t");
+				if(paths.length > 2){
+					throw new IllegalArgumentException("Expected one or two tab-separated paths, got \'" + line + "\'");
+				}
+
+				File input = resolve(dir, paths[0].trim());
+				File output = (paths.length > 1 ? resolve(dir, paths[1].trim()) : toOutput(input));
+
+				result.add(new Conversion(input, output));
+			}
+		} else
+
+		// Directory or glob pattern
+		{
+			File dir;
+			String pattern;
+
+			if(file.isDirectory()){
+				dir = file;
+				pattern = "*.pkl";
+			} else
+
+			{
+				dir = file.getParentFile();
+				pattern = file.getName();
+
+				if(dir == null){
+					dir = new File(".");
+				}
+			}
+
+			PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+
+			File[] inputs = dir.listFiles(input -> input.isFile() && matcher.matches(Paths.get(input.getName())));
+			if(inputs == null){
+				throw new IllegalArgumentException("Directory " + dir.getAbsolutePath() + " does not exist");
+			}
+
+			Arrays.sort(inputs);
+
+			for(File input : inputs){
+				result.add(new Conversion(input, toOutput(input)));
+			}
+		} // End if
+
+		if(result.isEmpty()){
+			throw new IllegalArgumentException("No PKL files found for " + this.batchInput);
+		}
+
+		return result;
+	}
+
+	private File toOutput(File input){
+		File dir = this.batchOutput;
+
+		if(dir == null){
+			dir = input.getAbsoluteFile().getParentFile();
+		}
+
+		String name = input.getName();
+
+		int index = name.lastIndexOf('.');
+		if(index > 0){
+			name = name.substring(0, index);
+		}
+
+		return new File(dir, name + ".pmml");
+	}
+
+	private void writeReport(List<Conversion> conversions) throws IOException {
+
+		if(this.batchReport != null){
+
+			try(PrintWriter writer = new PrintWriter(new OutputStreamWriter(new FileOutputStream(this.batchReport), StandardCharsets.UTF_8))){
+				writeReport(conversions, writer);
+			}
+		} else
+
+		{
+			PrintWriter writer = new PrintWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+
+			writeReport(conversions, writer);
+
+			writer.flush();
+		}
+	}
+
+	static
+	private void writeReport(List<Conversion> conversions, PrintWriter writer){
+		writer.println(String.join("\t", "input", "output", "status", "parse_ms", "convert_ms", "marshal_ms", "total_ms", "message"));
+
+		for(Conversion conversion : conversions){
+			Throwable exception = conversion.getException();
+
+			String message = "";
+
+			if(exception != null){
+				message = String.valueOf(exception).replaceAll("\\s+", " ");
+			}
+
+			writer.println(String.join("\t",
+				conversion.getInput().getPath(),
+				conversion.getOutput().getPath(),
+				(exception != null ? "FAILED" : "OK"),
+				String.valueOf(conversion.getParseTime()),
+				String.valueOf(conversion.getConvertTime()),
+				String.valueOf(conversion.getMarshalTime()),
+				String.valueOf(conversion.getTotalTime()),
+				message
+			));
+		}
+	}
+
+	private void convert(Conversion conversion) throws Exception {
+		Profiler profiler = (this.profile ? new Profiler(this.profileNodes) : null);
+
+		Profiler.setActive(profiler);
+
+		// External tables are written next to the PMML file
+		TableLocatorUtil.setDirectory((conversion.getOutput()).getAbsoluteFile().getParentFile());
+
+		try {
+			Object object;
+
+			try(Storage storage = createStorage(conversion.getInput())){
+				object = unpickle(storage, conversion);
+			}
+
+			PMML pmml = encodePMML(object, conversion);
+
+			try(OutputStream os = new FileOutputStream(conversion.getOutput())){
+				marshalPMML(pmml, os, conversion);
+			}
+		} finally {
+			Profiler.setActive(null);
+
+			TableLocatorUtil.setDirectory(null);
+
+			if(profiler != null){
+				writeProfile(profiler, new File(conversion.getOutput().getPath() + ".profile.json"));
+			}
+		}
+	}
+
+	private Storage createStorage(File input) throws IOException {
+
+		if(this.memoryMap){
+			return MappedPickleUtil.createStorage(input);
+		}
+
+		return StorageUtil.createStorage(input);
+	}
+
+	Object unpickle(Storage storage, Conversion conversion) throws Exception {
 		Object object;
 
-		try(Storage storage = StorageUtil.createStorage(this.input)){
+		try {
 			logger.info("Parsing PKL..");
 
+			Profiler.Step step = Profiler.start(Profiler.PHASE_PARSE, null, null);
+
 			long begin = System.currentTimeMillis();
-			object = PickleUtil.unpickle(storage);
+
+			try {
+				object = MappedPickleUtil.unpickle(storage);
+			} finally {
+				Profiler.finish(step);
+			}
+
 			long end = System.currentTimeMillis();
 
+			conversion.setParseTime(end - begin);
+
 			logger.info("Parsed PKL in {} ms.", (end - begin));
 		} catch(Exception e){
 			logger.error("Failed to parse PKL", e);
@@ -170,6 +571,12 @@ public class Main {
 			throw e;
 		}
 
+		return object;
+	}
+
+	PMML encodePMML(Object object, Conversion conversion) throws Exception {
+		SkLearnEncoder encoder = new SkLearnEncoder();
+
 		if(!(object instanceof PMMLPipeline)){
 
 			// Create a single- or multi-step PMMLPipeline from a Pipeline
@@ -206,6 +613,7 @@ public class Main {
 			options.put(HasTreeOptions.OPTION_NODE_ID, this.nodeId);
 			options.put(HasTreeOptions.OPTION_NODE_SCORE, this.nodeScore);
 			options.put(HasTreeOptions.OPTION_NUMERIC, this.numeric);
+			options.put(HasTreeOptions.OPTION_PARALLEL, this.parallel);
 			options.put(HasTreeOptions.OPTION_PRUNE, this.prune);
 			options.put(HasTreeOptions.OPTION_WINNER_ID, this.winnerId);
 
@@ -222,10 +630,20 @@ public class Main {
 		try {
 			logger.info("Converting PKL to PMML..");
 
+			Profiler.Step step = Profiler.start(Profiler.PHASE_CONVERT, pipeline.getClassName(), encoder);
+
 			long begin = System.currentTimeMillis();
-			pmml = pipeline.encodePMML(encoder);
+
+			try {
+				pmml = pipeline.encodePMML(encoder);
+			} finally {
+				Profiler.finish(step);
+			}
+
 			long end = System.currentTimeMillis();
 
+			conversion.setConvertTime(end - begin);
+
 			logger.info("Converted PKL to PMML in {} ms.", (end - begin));
 		} catch(Exception e){
 			logger.error("Failed to convert PKL to PMML", e);
@@ -233,13 +651,28 @@ public class Main {
 			throw e;
 		}
 
-		try(OutputStream os = new FileOutputStream(this.output)){
+		return pmml;
+	}
+
+	void marshalPMML(PMML pmml, OutputStream os, Conversion conversion) throws Exception {
+
+		try {
 			logger.info("Marshalling PMML..");
 
+			Profiler.Step step = Profiler.start(Profiler.PHASE_MARSHAL, null, null);
+
 			long begin = System.currentTimeMillis();
-			MetroJAXBUtil.marshalPMML(pmml, os);
+
+			try {
+				MetroJAXBUtil.marshalPMML(pmml, os);
+			} finally {
+				Profiler.finish(step);
+			}
+
 			long end = System.currentTimeMillis();
 
+			conversion.setMarshalTime(end - begin);
+
 			logger.info("Marshalled PMML in {} ms.", (end - begin));
 		} catch(Exception e){
 			logger.error("Failed to marshal PMML", e);
@@ -264,5 +697,144 @@ public class Main {
 		this.output = output;
 	}
 
+	/**
+	 * <p>
+	 * Enables content caches, which are disabled by default.
+	 * </p>
+	 *
+	 * An explicitly set system property takes precedence over the default capacity, but not over the command-line option.
+	 */
+	private void enableCaches(){
+		Integer capacity = this.cacheCapacity;
+
+		if(capacity == null){
+
+			if(System.getProperty(ContentCache.PROPERTY_CAPACITY) != null){
+				return;
+			}
+
+			capacity = Main.DEFAULT_CACHE_CAPACITY;
+		}
+
+		ContentCache.setDefaultCapacity(capacity);
+	}
+
+	static
+	void logCaches(){
+		List<ContentCache<?>> caches = ContentCache.getCaches();
+
+		for(ContentCache<?> cache : caches){
+
+			if(!cache.isEnabled()){
+				continue;
+			}
+
+			logger.info("Content cache {}: {} hit(s), {} miss(es), {} out of {} entries used", cache.getName(), cache.getHitCount(), cache.getMissCount(), cache.size(), cache.getCapacity());
+		}
+	}
+
+	static
+	private void writeProfile(Profiler profiler, File file){
+
+		try(Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)){
+			profiler.writeJson(writer);
+		} catch(IOException ioe){
+			logger.warn("Failed to write profile", ioe);
+		}
+	}
+
+	static
+	private File resolve(File dir, String path){
+		File file = new File(path);
+
+		if(!file.isAbsolute()){
+			file = new File(dir, path);
+		}
+
+		return file;
+	}
+
+	static
+	class Conversion {
+
+		private File input = null;
+
+		private File output = null;
+
+		private long parseTime = -1L;
+
+		private long convertTime = -1L;
+
+		private long marshalTime = -1L;
+
+		private Throwable exception = null;
+
+
+		Conversion(){
+			this(null, null);
+		}
+
+		Conversion(File input, File output){
+			this.input = input;
+			this.output = output;
+		}
+
+		public File getInput(){
+			return this.input;
+		}
+
+		public File getOutput(){
+			return this.output;
+		}
+
+		public long getParseTime(){
+			return this.parseTime;
+		}
+
+		private void setParseTime(long parseTime){
+			this.parseTime = parseTime;
+		}
+
+		public long getConvertTime(){
+			return this.convertTime;
+		}
+
+		private void setConvertTime(long convertTime){
+			this.convertTime = convertTime;
+		}
+
+		public long getMarshalTime(){
+			return this.marshalTime;
+		}
+
+		private void setMarshalTime(long marshalTime){
+			this.marshalTime = marshalTime;
+		}
+
+		public long getTotalTime(){
+			long result = 0L;
+
+			long[] times = {this.parseTime, this.convertTime, this.marshalTime};
+			for(long time : times){
+
+				if(time > 0L){
+					result += time;
+				}
+			}
+
+			return result;
+		}
+
+		public Throwable getException(){
+			return this.exception;
+		}
+
+		private void setException(Throwable exception){
+			this.exception = exception;
+		}
+	}
+
+	private static final int DEFAULT_CACHE_CAPACITY = 8;
+
 	private static final Logger logger = LoggerFactory.getLogger(Main.class);
 }
\ No newline at end of file
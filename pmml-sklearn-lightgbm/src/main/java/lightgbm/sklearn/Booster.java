@@ -18,14 +18,14 @@
  */
 package lightgbm.sklearn;
 
-import java.io.IOException;
-import java.io.StringReader;
-import java.util.List;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 
-import com.google.common.io.CharStreams;
+import com.google.common.hash.HashCode;
 import org.jpmml.lightgbm.GBDT;
 import org.jpmml.lightgbm.LightGBMUtil;
 import org.jpmml.python.PythonObject;
+import org.jpmml.sklearn.ContentCache;
 
 public class Booster extends PythonObject {
 
@@ -39,7 +39,21 @@ public class Booster extends PythonObject {
 	public GBDT getGBDT(){
 
 		if(this.gbdt == null){
-			this.gbdt = loadGBDT();
+
+			// Hashing the model text is only worth it if the result can be reused
+			if(Booster.gbdtCache.isEnabled()){
+				String handle = getHandle();
+
+				HashCode key = ContentCache.hashFunction().newHasher()
+					.putUnencodedChars(handle)
+					.hash();
+
+				this.gbdt = Booster.gbdtCache.get(key, this::loadGBDT);
+			} else
+
+			{
+				this.gbdt = loadGBDT();
+			}
 		}
 
 		return this.gbdt;
@@ -48,16 +62,92 @@ public class Booster extends PythonObject {
 	private GBDT loadGBDT(){
 		String handle = getHandle();
 
-		try(StringReader reader = new StringReader(handle)){
-			List<String> lines = CharStreams.readLines(reader);
+		// Model text can be hundreds of megabytes, so split it into lines on demand
+		Iterator<String> lines = new LineIterator(handle);
 
-			return LightGBMUtil.loadGBDT(lines.iterator());
-		} catch(IOException ioe){
-			throw new RuntimeException(ioe);
-		}
+		return LightGBMUtil.loadGBDT(lines);
 	}
 
 	public String getHandle(){
 		return getString("handle");
 	}
+
+	/**
+	 * <p>
+	 * Gets the cache of parsed GBDTs, which is shared between all booster objects.
+	 * </p>
+	 *
+	 * The cache is disabled by default.
+	 * Cached GBDTs may be shared between threads, so callers must not use the same GBDT concurrently.
+	 */
+	static
+	public ContentCache<GBDT> getGBDTCache(){
+		return Booster.gbdtCache;
+	}
+
+	/**
+	 * <p>
+	 * An iterator over the lines of a string.
+	 * </p>
+	 *
+	 * Lines are terminated by <code>\n</code>, <code>\r</code> or <code>\r\n</code>, the same way as {@link com.google.common.io.CharStreams#readLines(Readable)} does.
+	 */
+	static
+	class LineIterator implements Iterator<String> {
+
+		private String string = null;
+
+		private int position = 0;
+
+
+		LineIterator(String string){
+			this.string = string;
+		}
+
+		@Override
+		public boolean hasNext(){
+			return (this.position < this.string.length());
+		}
+
+		@Override
+		public String next(){
+			String string = this.string;
+
+			if(!hasNext()){
+				throw new NoSuchElementException();
+			}
+
+			int begin = this.position;
+			int end = begin;
+
+			while(end < string.length()){
+				char c = string.charAt(end);
+
+				if(c == '\n' || c == '\r'){
+					break;
+				}
+
+				end++;
+			}
+
+			String result = string.substring(begin, end);
+
+			if(end < string.length()){
+
+				if(string.charAt(end) == '\r' && (end + 1) < string.length() && string.charAt(end + 1) == '\n'){
+					end += 2;
+				} else
+
+				{
+					end += 1;
+				}
+			}
+
+			this.position = end;
+
+			return result;
+		}
+	}
+
+	private static final ContentCache<GBDT> gbdtCache = ContentCache.create("lightgbm.sklearn.Booster");
 }
\ No newline at end of file
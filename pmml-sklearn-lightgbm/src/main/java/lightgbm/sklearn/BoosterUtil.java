@@ -65,9 +65,14 @@ public class BoosterUtil {
 
 		ModelEncoder encoder = (ModelEncoder)schema.getEncoder();
 
-		Schema lgbmSchema = gbdt.toLightGBMSchema(schema);
+		MiningModel miningModel;
 
-		MiningModel miningModel = gbdt.encodeMiningModel(options, lgbmSchema);
+		// The GBDT may be shared with other threads via the GBDT cache
+		synchronized(gbdt){
+			Schema lgbmSchema = gbdt.toLightGBMSchema(schema);
+
+			miningModel = gbdt.encodeMiningModel(options, lgbmSchema);
+		}
 
 		encoder.transferFeatureImportances(null, miningModel);
 
@@ -18,12 +18,17 @@
  */
 package xgboost.sklearn;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 
+import com.google.common.hash.HashCode;
+import org.jpmml.python.ClassDictUtil;
 import org.jpmml.python.PythonObject;
+import org.jpmml.sklearn.ByteBufferInputStream;
+import org.jpmml.sklearn.ContentCache;
+import org.jpmml.sklearn.MappedPickleUtil;
 import org.jpmml.xgboost.Learner;
 import org.jpmml.xgboost.XGBoostUtil;
 
@@ -39,16 +44,32 @@ public class Booster extends PythonObject {
 	public Learner getLearner(ByteOrder byteOrder, String charset){
 
 		if(this.learner == null){
-			this.learner = loadLearner(byteOrder, charset);
+
+			// Hashing the handle is only worth it if the result can be reused
+			if(Booster.learnerCache.isEnabled()){
+				ByteBuffer handle = getHandle();
+
+				HashCode key = ContentCache.hashFunction().newHasher()
+					.putBytes(handle)
+					.putUnencodedChars(String.valueOf(byteOrder))
+					.putUnencodedChars(String.valueOf(charset))
+					.hash();
+
+				this.learner = Booster.learnerCache.get(key, () -> loadLearner(byteOrder, charset));
+			} else
+
+			{
+				this.learner = loadLearner(byteOrder, charset);
+			}
 		}
 
 		return this.learner;
 	}
 
 	private Learner loadLearner(ByteOrder byteOrder, String charset){
-		byte[] handle = getHandle();
+		ByteBuffer handle = getHandle();
 
-		try(InputStream is = new ByteArrayInputStream(handle)){
+		try(InputStream is = new ByteBufferInputStream(handle)){
 			return XGBoostUtil.loadLearner(is, byteOrder, charset, "$.Model");
 		} catch(IOException ioe){
 			throw new RuntimeException(ioe);
@@ -64,7 +85,41 @@ public class Booster extends PythonObject {
 		return getInteger("best_ntree_limit");
 	}
 
-	public byte[] getHandle(){
-		return get("handle", byte[].class);
+	/**
+	 * <p>
+	 * Gets the serialized learner.
+	 * </p>
+	 *
+	 * The handle is a byte array in the default case,
+	 * and a memory-mapped byte buffer if the pickle file was unpickled using {@link MappedPickleUtil}.
+	 * Either way, the returned byte buffer is a new view of the data, which does not copy it.
+	 */
+	public ByteBuffer getHandle(){
+		Object handle = get("handle");
+
+		if(handle instanceof byte[]){
+			return ByteBuffer.wrap((byte[])handle);
+		} else
+
+		if(handle instanceof ByteBuffer){
+			return ((ByteBuffer)handle).duplicate();
+		}
+
+		throw new IllegalArgumentException("Attribute \'" + ClassDictUtil.formatMember(this, "handle") + "\' has an unsupported value (" + ClassDictUtil.formatClass(handle) + ")");
 	}
+
+	/**
+	 * <p>
+	 * Gets the cache of parsed learners, which is shared between all booster objects.
+	 * </p>
+	 *
+	 * The cache is disabled by default.
+	 * Cached learners may be shared between threads, so callers must not use the same learner concurrently.
+	 */
+	static
+	public ContentCache<Learner> getLearnerCache(){
+		return Booster.learnerCache;
+	}
+
+	private static final ContentCache<Learner> learnerCache = ContentCache.create("xgboost.sklearn.Booster");
 }
@@ -78,11 +78,14 @@ public class BoosterUtil {
 		options.put(HasXGBoostOptions.OPTION_PRUNE, prune);
 		options.put(HasXGBoostOptions.OPTION_NTREE_LIMIT, ntreeLimit);
 
-		Schema xgbSchema = learner.toXGBoostSchema(numeric, schema);
+		// The learner may be shared with other threads via the learner cache
+		synchronized(learner){
+			Schema xgbSchema = learner.toXGBoostSchema(numeric, schema);
 
-		MiningModel miningModel = learner.encodeMiningModel(options, xgbSchema);
+			MiningModel miningModel = learner.encodeMiningModel(options, xgbSchema);
 
-		return miningModel;
+			return miningModel;
+		}
 	}
 
 	static
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2023 Villu Ruusmann
+ *
+ * This file is part of JPMML-SkLearn
+ *
+ * JPMML-SkLearn is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-SkLearn is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-SkLearn.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.sklearn;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * <p>
+ * An input stream that reads the remaining bytes of a byte buffer, without copying them.
+ * </p>
+ *
+ * Reading advances the position of the byte buffer.
+ * Callers that need to keep the position should pass a {@link ByteBuffer#duplicate() duplicate}.
+ */
+public class ByteBufferInputStream extends InputStream {
+
+	private ByteBuffer buffer = null;
+
+
+	public ByteBufferInputStream(ByteBuffer buffer){
+		this.buffer = buffer;
+	}
+
+	@Override
+	public int read(){
+
+		if(!this.buffer.hasRemaining()){
+			return -1;
+		}
+
+		return (this.buffer.get() & 0xFF);
+	}
+
+	@Override
+	public int read(byte[] bytes, int offset, int length){
+
+		if(length == 0){
+			return 0;
+		} // End if
+
+		if(!this.buffer.hasRemaining()){
+			return -1;
+		}
+
+		length = Math.min(length, this.buffer.remaining());
+
+		this.buffer.get(bytes, offset, length);
+
+		return length;
+	}
+
+	@Override
+	public int available(){
+		return this.buffer.remaining();
+	}
+}
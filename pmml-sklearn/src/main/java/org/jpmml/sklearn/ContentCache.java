@@ -0,0 +1,239 @@
+/*
+ * Copyright (c) 2023 Villu Ruusmann
+ *
+ * This file is part of JPMML-SkLearn
+ *
+ * JPMML-SkLearn is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-SkLearn is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-SkLearn.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.sklearn;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+/**
+ * <p>
+ * A bounded, least-recently-used cache of objects that have been parsed from some binary or text content.
+ * </p>
+ *
+ * Entries are keyed by a hash of the content, plus any parsing parameters, so that the same model is parsed only once,
+ * even if it is unpickled and converted many times (eg. using different conversion options).
+ * Cached objects are shared, and must therefore be treated as read-only.
+ *
+ * <p>
+ * Caching is disabled (ie. the capacity is zero) by default,
+ * because it only pays off in long-running processes that convert the same content repeatedly.
+ * The default capacity of named caches can be set using the {@link #PROPERTY_CAPACITY} system property,
+ * or programmatically using the {@link #setDefaultCapacity(int)} method.
+ * </p>
+ *
+ * @param <V> The type of parsed objects.
+ */
+public class ContentCache<V> {
+
+	private String name = null;
+
+	private volatile int capacity;
+
+	private Map<HashCode, V> entries = null;
+
+	private AtomicLong hitCount = new AtomicLong();
+
+	private AtomicLong missCount = new AtomicLong();
+
+
+	public ContentCache(int capacity){
+		this(null, capacity);
+	}
+
+	public ContentCache(String name, int capacity){
+
+		if(capacity < 0){
+			throw new IllegalArgumentException();
+		}
+
+		this.name = name;
+		this.capacity = capacity;
+
+		this.entries = new LinkedHashMap<HashCode, V>(16, 0.75f, true){
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<HashCode, V> entry){
+				return size() > ContentCache.this.capacity;
+			}
+		};
+	}
+
+	/**
+	 * <p>
+	 * Gets the cached object for the specified key, or parses it.
+	 * </p>
+	 *
+	 * If the cache is disabled, then the parser is invoked directly, and the hit and miss counts are left unchanged.
+	 * The parser is invoked outside of the cache lock.
+	 * Concurrent requests for the same key may parse the content more than once, but only one result is kept.
+	 */
+	public V get(HashCode key, Supplier<? extends V> parser){
+
+		if(!isEnabled()){
+			return parser.get();
+		}
+
+		V value;
+
+		synchronized(this){
+			value = this.entries.get(key);
+		}
+
+		if(value != null){
+			this.hitCount.incrementAndGet();
+
+			return value;
+		}
+
+		this.missCount.incrementAndGet();
+
+		value = parser.get();
+
+		synchronized(this){
+			V prevValue = this.entries.putIfAbsent(key, value);
+
+			if(prevValue != null){
+				return prevValue;
+			}
+		}
+
+		return value;
+	}
+
+	synchronized
+	public void clear(){
+		this.entries.clear();
+	}
+
+	synchronized
+	public int size(){
+		return this.entries.size();
+	}
+
+	public String getName(){
+		return this.name;
+	}
+
+	public boolean isEnabled(){
+		return (this.capacity > 0);
+	}
+
+	public int getCapacity(){
+		return this.capacity;
+	}
+
+	/**
+	 * <p>
+	 * Sets the capacity, evicting the least recently used entries if the cache is shrunk.
+	 * </p>
+	 */
+	synchronized
+	public void setCapacity(int capacity){
+
+		if(capacity < 0){
+			throw new IllegalArgumentException();
+		}
+
+		this.capacity = capacity;
+
+		Iterator<?> it = this.entries.keySet().iterator();
+
+		for(int size = this.entries.size(); size > capacity; size--){
+			it.next();
+			it.remove();
+		}
+	}
+
+	public long getHitCount(){
+		return this.hitCount.get();
+	}
+
+	public long getMissCount(){
+		return this.missCount.get();
+	}
+
+	@Override
+	public String toString(){
+		return "ContentCache(name=" + this.name + ", capacity=" + this.capacity + ", size=" + size() + ", hits=" + getHitCount() + ", misses=" + getMissCount() + ")";
+	}
+
+	static
+	public HashFunction hashFunction(){
+		return Hashing.sha256();
+	}
+
+	/**
+	 * <p>
+	 * Creates a new cache with the default capacity, and registers it so that it can be found using the {@link #getCaches()} method.
+	 * </p>
+	 */
+	static
+	public <V> ContentCache<V> create(String name){
+		ContentCache<V> cache = new ContentCache<>(name, ContentCache.defaultCapacity);
+
+		ContentCache.caches.add(cache);
+
+		return cache;
+	}
+
+	static
+	public List<ContentCache<?>> getCaches(){
+		return Collections.unmodifiableList(ContentCache.caches);
+	}
+
+	static
+	public int getDefaultCapacity(){
+		return ContentCache.defaultCapacity;
+	}
+
+	/**
+	 * <p>
+	 * Sets the default capacity, and applies it to all registered caches.
+	 * </p>
+	 */
+	static
+	public void setDefaultCapacity(int defaultCapacity){
+
+		if(defaultCapacity < 0){
+			throw new IllegalArgumentException();
+		}
+
+		ContentCache.defaultCapacity = defaultCapacity;
+
+		for(ContentCache<?> cache : ContentCache.caches){
+			cache.setCapacity(defaultCapacity);
+		}
+	}
+
+	public static final String PROPERTY_CAPACITY = "org.jpmml.sklearn.ContentCache.capacity";
+
+	private static volatile int defaultCapacity = Integer.getInteger(ContentCache.PROPERTY_CAPACITY, 0);
+
+	private static final List<ContentCache<?>> caches = new CopyOnWriteArrayList<>();
+}
@@ -0,0 +1,317 @@
+/*
+ * Copyright (c) 2023 Villu Ruusmann
+ *
+ * This file is part of JPMML-SkLearn
+ *
+ * JPMML-SkLearn is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-SkLearn is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-SkLearn.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.sklearn;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.stream.IntStream;
+
+import javax.xml.namespace.QName;
+
+import jakarta.xml.bind.JAXBElement;
+import org.dmg.pmml.InlineTable;
+import org.dmg.pmml.Row;
+import org.dmg.pmml.Visitor;
+import org.dmg.pmml.VisitorAction;
+import org.jpmml.converter.PMMLEncoder;
+import org.jpmml.converter.PMMLUtil;
+import org.jpmml.converter.ValueUtil;
+import org.jpmml.model.cells.InputCell;
+import org.jpmml.model.cells.OutputCell;
+
+/**
+ * <p>
+ * Utilities for building large inline tables from column data.
+ * </p>
+ *
+ * @see PMMLUtil#createInlineTable(Map)
+ */
+public class InlineTableUtil {
+
+	private InlineTableUtil(){
+	}
+
+	/**
+	 * <p>
+	 * Creates an inline table, which is equivalent to the one created by {@link PMMLUtil#createInlineTable(Map)}.
+	 * </p>
+	 *
+	 * @param parallel If <code>true</code>, then rows are created using the common fork-join pool.
+	 * @param lazy If <code>true</code>, then row cells are created only when they are requested (eg. during marshalling).
+	 * Column values stay in their original representation, which should be a primitive-backed list such as {@link PrimitiveMatrix#getColumnValues(int)}.
+	 * The cells of a row are created all at once, and are then retained, so that the row content is stable and modifiable the same as in the eager mode.
+	 * Visitors do not cause the cells to be created, because the cells of this mode are not visitable anyway.
+	 * This mode is not applicable if any column contains missing values, or maps to visitable cells (see {@link InputCell} and {@link OutputCell}).
+	 */
+	static
+	public InlineTable createInlineTable(Map<String, ? extends List<?>> data, boolean parallel, boolean lazy){
+		List<QName> names = new ArrayList<>(data.size());
+		List<List<?>> columns = new ArrayList<>(data.size());
+
+		int rows = -1;
+
+		for(Map.Entry<String, ? extends List<?>> entry : data.entrySet()){
+			String key = entry.getKey();
+			List<?> values = entry.getValue();
+
+			if(rows == -1){
+				rows = values.size();
+			} else
+
+			{
+				if(rows != values.size()){
+					throw new IllegalArgumentException();
+				}
+			}
+
+			names.add(toQName(key));
+			columns.add(values);
+		}
+
+		if(rows == -1){
+			rows = 0;
+		} // End if
+
+		if(lazy && (hasVisitableCells(names) || hasMissingValues(columns, parallel))){
+			lazy = false;
+		}
+
+		IntStream indices = IntStream.range(0, rows);
+
+		if(parallel){
+			indices = indices.parallel();
+		}
+
+		Row[] result;
+
+		if(lazy){
+			result = indices
+				.mapToObj(row -> new LazyRow(new CellList(names, columns, row)))
+				.toArray(Row[]::new);
+		} else
+
+		{
+			result = indices
+				.mapToObj(row -> createRow(names, columns, row))
+				.toArray(Row[]::new);
+		}
+
+		InlineTable inlineTable = new InlineTable()
+			.addRows(result);
+
+		return inlineTable;
+	}
+
+	static
+	private Row createRow(List<QName> names, List<List<?>> columns, int row){
+		return new Row(createCells(names, columns, row));
+	}
+
+	static
+	private List<Object> createCells(List<QName> names, List<List<?>> columns, int row){
+		List<Object> cells = new ArrayList<>(columns.size());
+
+		for(int i = 0; i < columns.size(); i++){
+			List<?> column = columns.get(i);
+
+			Object value = column.get(row);
+			if(value == null){
+				continue;
+			}
+
+			cells.add(createCell(names.get(i), value));
+		}
+
+		return cells;
+	}
+
+	static
+	private Object createCell(QName name, Object value){
+
+		if((InputCell.QNAME).equals(name)){
+			return new InputCell(value);
+		} else
+
+		if((OutputCell.QNAME).equals(name)){
+			return new OutputCell(value);
+		}
+
+		return new JAXBElement<>(name, String.class, ValueUtil.asString(value));
+	}
+
+	/**
+	 * @return <code>true</code> if the row is a lazy row, whose cells have been created.
+	 */
+	static
+	boolean isMaterialized(Row row){
+
+		if(row instanceof LazyRow){
+			LazyRow lazyRow = (LazyRow)row;
+
+			return lazyRow.isMaterialized();
+		}
+
+		return true;
+	}
+
+	static
+	private boolean hasVisitableCells(List<QName> names){
+		return names.stream()
+			.anyMatch(name -> (InputCell.QNAME).equals(name) || (OutputCell.QNAME).equals(name));
+	}
+
+	static
+	private boolean hasMissingValues(List<List<?>> columns, boolean parallel){
+
+		if(parallel){
+			return columns.parallelStream()
+				.anyMatch(column -> column.contains(null));
+		}
+
+		return columns.stream()
+			.anyMatch(column -> column.contains(null));
+	}
+
+	/**
+	 * @see PMMLUtil#createInlineTable(java.util.function.Function, Map)
+	 */
+	static
+	private QName toQName(String key){
+
+		if(key.startsWith("data:")){
+			return new QName("http://jpmml.org/jpmml-model/InlineTable", key.substring("data:".length()), "data");
+		} // End if
+
+		if(key.indexOf(':') > -1){
+			throw new IllegalArgumentException(key);
+		}
+
+		return new QName((PMMLEncoder.VERSION).getNamespaceURI(), key);
+	}
+
+	static
+	private class LazyRow extends Row {
+
+		private LazyRow(CellList cells){
+			super(cells);
+		}
+
+		@Override
+		public VisitorAction accept(Visitor visitor){
+
+			if(!isMaterialized()){
+				VisitorAction status = visitor.visit(this);
+
+				// The cells are JAXBElements, which would not be visited
+				if(status == VisitorAction.TERMINATE){
+					return VisitorAction.TERMINATE;
+				}
+
+				return VisitorAction.CONTINUE;
+			}
+
+			return super.accept(visitor);
+		}
+
+		private boolean isMaterialized(){
+			CellList cells = (CellList)getContent();
+
+			return cells.isMaterialized();
+		}
+	}
+
+	static
+	private class CellList extends AbstractList<Object> implements RandomAccess {
+
+		private List<QName> names = null;
+
+		private List<List<?>> columns = null;
+
+		private int row;
+
+		private List<Object> cells = null;
+
+
+		private CellList(List<QName> names, List<List<?>> columns, int row){
+			this.names = names;
+			this.columns = columns;
+			this.row = row;
+		}
+
+		@Override
+		public int size(){
+
+			if(this.cells == null){
+				return this.columns.size();
+			}
+
+			return this.cells.size();
+		}
+
+		@Override
+		public Object get(int index){
+			List<Object> cells = getCells();
+
+			return cells.get(index);
+		}
+
+		@Override
+		public Object set(int index, Object element){
+			List<Object> cells = getCells();
+
+			return cells.set(index, element);
+		}
+
+		@Override
+		public void add(int index, Object element){
+			List<Object> cells = getCells();
+
+			cells.add(index, element);
+
+			super.modCount++;
+		}
+
+		@Override
+		public Object remove(int index){
+			List<Object> cells = getCells();
+
+			Object result = cells.remove(index);
+
+			super.modCount++;
+
+			return result;
+		}
+
+		private boolean isMaterialized(){
+			return (this.cells != null);
+		}
+
+		private List<Object> getCells(){
+
+			if(this.cells == null){
+				this.cells = createCells(this.names, this.columns, this.row);
+			}
+
+			return this.cells;
+		}
+	}
+}
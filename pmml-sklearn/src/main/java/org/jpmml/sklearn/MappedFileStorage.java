@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2023 Villu Ruusmann
+ *
+ * This file is part of JPMML-SkLearn
+ *
+ * JPMML-SkLearn is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-SkLearn is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-SkLearn.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.sklearn;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+import org.jpmml.python.Storage;
+
+/**
+ * <p>
+ * A storage for uncompressed pickle files, which maps large Numpy array payloads into memory instead of reading them.
+ * </p>
+ *
+ * The mapped regions stay valid after this storage has been closed.
+ *
+ * @see MappedPickleUtil#createStorage(File)
+ * @see MappedPickleUtil#unpickle(Storage)
+ */
+public class MappedFileStorage extends Storage {
+
+	private File file = null;
+
+	private FileChannel channel = null;
+
+	private int mappingThreshold;
+
+
+	public MappedFileStorage(File file) throws IOException {
+		this(file, MappedFileStorage.DEFAULT_MAPPING_THRESHOLD);
+	}
+
+	/**
+	 * @param mappingThreshold The minimum size of a Numpy array payload (in bytes) that is mapped into memory.
+	 * Smaller payloads are copied into byte arrays.
+	 */
+	public MappedFileStorage(File file, int mappingThreshold) throws IOException {
+		this.file = file;
+		this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+		this.mappingThreshold = mappingThreshold;
+	}
+
+	@Override
+	public MappedInputStream getObject() throws IOException {
+		FileChannel channel = ensureOpen();
+
+		return new MappedInputStream(channel);
+	}
+
+	@Override
+	public InputStream getArray(String path) throws IOException {
+		ensureOpen();
+
+		return new FileInputStream(new File(this.file.getParentFile(), path));
+	}
+
+	@Override
+	public void close() throws IOException {
+
+		if(this.channel != null){
+			this.channel.close();
+
+			this.channel = null;
+		}
+	}
+
+	public int getMappingThreshold(){
+		return this.mappingThreshold;
+	}
+
+	private FileChannel ensureOpen() throws IOException {
+
+		if(this.channel == null){
+			throw new IOException();
+		}
+
+		return this.channel;
+	}
+
+	public static final int DEFAULT_MAPPING_THRESHOLD = 1024 * 1024;
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2023 Villu Ruusmann
+ *
+ * This file is part of JPMML-SkLearn
+ *
+ * JPMML-SkLearn is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-SkLearn is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-SkLearn.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.sklearn;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * <p>
+ * A buffered file input stream, which can hand out regions of the file as memory-mapped byte buffers.
+ * </p>
+ */
+public class MappedInputStream extends InputStream {
+
+	private FileChannel channel = null;
+
+	private ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+
+	/**
+	 * The file position of the first byte of the buffer.
+	 */
+	private long bufferPosition = 0L;
+
+
+	MappedInputStream(FileChannel channel){
+		this.channel = channel;
+
+		this.buffer.limit(0);
+	}
+
+	@Override
+	public int read() throws IOException {
+
+		if(!this.buffer.hasRemaining() && !fill()){
+			return -1;
+		}
+
+		return (this.buffer.get() & 0xFF);
+	}
+
+	@Override
+	public int read(byte[] bytes, int offset, int length) throws IOException {
+
+		if(length == 0){
+			return 0;
+		} // End if
+
+		if(!this.buffer.hasRemaining() && !fill()){
+			return -1;
+		}
+
+		length = Math.min(length, this.buffer.remaining());
+
+		this.buffer.get(bytes, offset, length);
+
+		return length;
+	}
+
+	@Override
+	public long skip(long length) throws IOException {
+		long position = position();
+
+		length = Math.max(0L, Math.min(length, this.channel.size() - position));
+
+		seek(position + length);
+
+		return length;
+	}
+
+	@Override
+	public int available(){
+		return this.buffer.remaining();
+	}
+
+	public long position(){
+		return this.bufferPosition + this.buffer.position();
+	}
+
+	/**
+	 * <p>
+	 * Maps the specified number of bytes starting from the current position, and advances past them.
+	 * </p>
+	 */
+	public MappedByteBuffer map(int length) throws IOException {
+		long position = position();
+
+		if(position + length > this.channel.size()){
+			throw new EOFException();
+		}
+
+		MappedByteBuffer result = this.channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+
+		seek(position + length);
+
+		return result;
+	}
+
+	private void seek(long position){
+		long offset = position - this.bufferPosition;
+
+		if(offset >= 0 && offset <= this.buffer.limit()){
+			this.buffer.position((int)offset);
+		} else
+
+		{
+			this.bufferPosition = position;
+
+			this.buffer.clear();
+			this.buffer.limit(0);
+		}
+	}
+
+	private boolean fill() throws IOException {
+		this.bufferPosition += this.buffer.limit();
+
+		this.buffer.clear();
+
+		int count;
+
+		do {
+			count = this.channel.read(this.buffer, this.bufferPosition + this.buffer.position());
+		} while(count == 0);
+
+		this.buffer.flip();
+
+		return this.buffer.hasRemaining();
+	}
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2023 Villu Ruusmann
+ *
+ * This file is part of JPMML-SkLearn
+ *
+ * JPMML-SkLearn is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-SkLearn is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-SkLearn.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.sklearn;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+
+import numpy.core.NDArray;
+import numpy.core.NDArrayUtil;
+
+/**
+ * <p>
+ * A Numpy array, whose data is an off-heap byte buffer.
+ * </p>
+ *
+ * The data is parsed into Java objects only when the content is requested.
+ * Primitive-typed readers should prefer decoding the byte buffer directly.
+ *
+ * @see PrimitiveArrayUtil
+ */
+public class MappedNDArray extends NDArray {
+
+	private Object content = null;
+
+
+	public MappedNDArray(){
+	}
+
+	@Override
+	public Object getContent(){
+
+		if(this.content == null){
+			this.content = loadContent();
+		}
+
+		return this.content;
+	}
+
+	@Override
+	public void clearContent(){
+		this.content = null;
+	}
+
+	@Override
+	public ByteBuffer getData(){
+		return (ByteBuffer)super.getData();
+	}
+
+	private Object loadContent(){
+		ByteBuffer data = getData();
+
+		try(InputStream is = new ByteBufferInputStream(data.duplicate())){
+			return NDArrayUtil.parseData(is, getDescr(), getShape());
+		} catch(IOException ioe){
+			throw new UncheckedIOException(ioe);
+		}
+	}
+}
@@ -0,0 +1,479 @@
+/*
+ * Copyright (c) 2023 Villu Ruusmann
+ *
+ * This file is part of JPMML-SkLearn
+ *
+ * JPMML-SkLearn is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-SkLearn is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-SkLearn.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.sklearn;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import joblib.NDArrayWrapperConstructor;
+import joblib.NumpyArrayWrapper;
+import net.razorvine.pickle.IObjectConstructor;
+import net.razorvine.pickle.Opcodes;
+import net.razorvine.pickle.PickleUtils;
+import net.razorvine.pickle.UnpickleStack;
+import net.razorvine.pickle.Unpickler;
+import net.razorvine.pickle.objects.ByteArrayConstructor;
+import numpy.DType;
+import numpy.core.NDArray;
+import numpy.core.TypeDescriptor;
+import org.jpmml.converter.ValueUtil;
+import org.jpmml.python.CompressedInputStreamStorage;
+import org.jpmml.python.CustomUnpickler;
+import org.jpmml.python.PythonObjectConstructor;
+import org.jpmml.python.Storage;
+import org.jpmml.python.StorageUtil;
+
+/**
+ * <p>
+ * Utilities for unpickling large pickle files with a bounded Java heap.
+ * </p>
+ *
+ * Joblib writes Numpy array payloads right after the pickle opcodes that describe them.
+ * The standard unpickler parses every payload into a list of boxed Java values.
+ * When the storage is a {@link MappedFileStorage}, then numeric payloads are kept as raw data instead,
+ * and payloads above the mapping threshold are not even copied onto the Java heap.
+ */
+public class MappedPickleUtil {
+
+	private MappedPickleUtil(){
+	}
+
+	/**
+	 * @return A {@link MappedFileStorage} if the file is uncompressed, the default storage otherwise.
+	 */
+	static
+	public Storage createStorage(File file) throws IOException {
+
+		try(PushbackInputStream is = new PushbackInputStream(new FileInputStream(file), 2)){
+			CompressedInputStreamStorage.Type type = CompressedInputStreamStorage.detectType(is);
+
+			if(type != null){
+				return StorageUtil.createStorage(file);
+			}
+		}
+
+		return new MappedFileStorage(file);
+	}
+
+	/**
+	 * <p>
+	 * Unpickles an object.
+	 * </p>
+	 *
+	 * Storage-specific Python classes (eg. joblib array wrappers) are resolved against constructors that are local to this call,
+	 * and never registered with the global constructor registry of {@link Unpickler}.
+	 * Therefore, concurrent calls with different storages do not interfere with one another.
+	 */
+	static
+	public Object unpickle(Storage storage) throws IOException {
+		Map<String, IObjectConstructor> constructors = new LinkedHashMap<>();
+
+		PythonObjectConstructor[] arrayWrapperConstructors = {
+			new NDArrayWrapperConstructor("joblib.numpy_pickle", "NDArrayWrapper", storage),
+			new NDArrayWrapperConstructor("sklearn.externals.joblib.numpy_pickle", "NDArrayWrapper", storage)
+		};
+
+		for(PythonObjectConstructor arrayWrapperConstructor : arrayWrapperConstructors){
+			constructors.put(arrayWrapperConstructor.getModule() + "." + arrayWrapperConstructor.getName(), arrayWrapperConstructor);
+		}
+
+		if(!(storage instanceof MappedFileStorage)){
+
+			// The same as PickleUtil#unpickle(Storage)
+			try(InputStream is = storage.getObject()){
+				Unpickler unpickler = new ScopedUnpickler(constructors){
+
+					@Override
+					protected Object dispatch(short key) throws IOException {
+						Object result = super.dispatch(key);
+
+						if(key == Opcodes.BUILD){
+							Object head = super.stack.peek();
+
+							if(head instanceof NumpyArrayWrapper){
+								NumpyArrayWrapper arrayWrapper = (NumpyArrayWrapper)head;
+
+								super.stack.pop();
+
+								NDArray array = arrayWrapper.toArray(is);
+
+								super.stack.add(array);
+							}
+						}
+
+						return result;
+					}
+				};
+
+				return unpickler.load(is);
+			}
+		}
+
+		MappedFileStorage mappedStorage = (MappedFileStorage)storage;
+
+		// Byte strings above the mapping threshold are kept as byte buffers (eg. XGBoost booster handles)
+		IObjectConstructor byteArrayConstructor = new ByteBufferConstructor();
+
+		constructors.put("__builtin__.bytearray", byteArrayConstructor);
+		constructors.put("builtins.bytearray", byteArrayConstructor);
+
+		int mappingThreshold = mappedStorage.getMappingThreshold();
+
+		try(MappedInputStream is = mappedStorage.getObject()){
+			Unpickler unpickler = new ScopedUnpickler(constructors){
+
+				@Override
+				protected Object dispatch(short key) throws IOException {
+
+					switch(key){
+						case Opcodes.BINBYTES:
+							super.stack.add(toBytes(is, readLength(is, 4), mappingThreshold));
+							return Unpickler.NO_RETURN_VALUE;
+						case Opcodes.BINBYTES8:
+						case Opcodes.BYTEARRAY8:
+							super.stack.add(toBytes(is, readLength(is, 8), mappingThreshold));
+							return Unpickler.NO_RETURN_VALUE;
+						case Opcodes.BUILD:
+							prepareBuild(super.stack);
+							break;
+						default:
+							break;
+					}
+
+					Object result = super.dispatch(key);
+
+					if(key == Opcodes.BUILD){
+						Object head = super.stack.peek();
+
+						// Replace the wrapper object (that is on top of the stack) with the array object
+						if(head instanceof NumpyArrayWrapper){
+							NumpyArrayWrapper arrayWrapper = (NumpyArrayWrapper)head;
+
+							super.stack.pop();
+
+							NDArray array = toArray(arrayWrapper, is, mappingThreshold);
+
+							super.stack.add(array);
+						}
+					}
+
+					return result;
+				}
+			};
+
+			return unpickler.load(is);
+		}
+	}
+
+	static
+	private NDArray toArray(NumpyArrayWrapper arrayWrapper, MappedInputStream is, int mappingThreshold) throws IOException {
+		DType dtype = arrayWrapper.getDType();
+		Object[] shape = arrayWrapper.getShape();
+		String order = arrayWrapper.getOrder();
+		Integer alignmentBytes = arrayWrapper.getNumpyArrayAlignmentBytes();
+
+		Object descr = dtype.toDescr();
+
+		long length = getItemSize(descr);
+
+		for(Object dimension : shape){
+			length *= ValueUtil.asInt((Number)dimension);
+		}
+
+		// Object arrays and unusual arrays are parsed the standard way
+		if(length < 0 || length > Integer.MAX_VALUE){
+			return arrayWrapper.toArray(is);
+		} // End if
+
+		if(alignmentBytes != null){
+			skipPadding(is, alignmentBytes);
+		}
+
+		Object data;
+
+		if(length >= mappingThreshold){
+			ByteBuffer buffer = is.map((int)length);
+
+			data = buffer;
+		} else
+
+		{
+			data = readBytes(is, (int)length);
+		}
+
+		NDArray result = (data instanceof ByteBuffer) ? new MappedNDArray() : new NDArray();
+		result.__setstate__(new Object[]{null, shape, descr, parseOrder(order), data});
+
+		return result;
+	}
+
+	/**
+	 * @return A byte buffer if the length is at or above the mapping threshold, a byte array otherwise.
+	 */
+	static
+	private Object toBytes(MappedInputStream is, long length, int mappingThreshold) throws IOException {
+
+		if(length < 0 || length > Integer.MAX_VALUE){
+			throw new IOException("Invalid byte string length " + length);
+		} // End if
+
+		if(length >= mappingThreshold){
+			return is.map((int)length);
+		}
+
+		return readBytes(is, (int)length);
+	}
+
+	/**
+	 * <p>
+	 * Numpy arrays that were pickled without joblib keep their data as a byte string in the state tuple.
+	 * The standard Numpy array class does not accept byte buffers, so they are copied into byte arrays.
+	 * </p>
+	 */
+	static
+	private void prepareBuild(UnpickleStack stack){
+		Object state = stack.pop();
+
+		if((stack.peek() instanceof NDArray) && (state instanceof Object[])){
+			toByteArrays((Object[])state);
+		}
+
+		stack.add(state);
+	}
+
+	static
+	private void toByteArrays(Object[] values){
+
+		for(int i = 0; i < values.length; i++){
+			Object value = values[i];
+
+			if(value instanceof ByteBuffer){
+				ByteBuffer buffer = ((ByteBuffer)value).duplicate();
+
+				byte[] bytes = new byte[buffer.remaining()];
+				buffer.get(bytes);
+
+				values[i] = bytes;
+			}
+		}
+	}
+
+	static
+	private byte[] readBytes(MappedInputStream is, int length) throws IOException {
+		byte[] result = new byte[length];
+
+		for(int offset = 0; offset < result.length; ){
+			int count = is.read(result, offset, result.length - offset);
+
+			if(count < 0){
+				throw new EOFException();
+			}
+
+			offset += count;
+		}
+
+		return result;
+	}
+
+	/**
+	 * <p>
+	 * Reads an unsigned little-endian integer.
+	 * </p>
+	 */
+	static
+	private long readLength(MappedInputStream is, int size) throws IOException {
+		long result = 0L;
+
+		for(int i = 0; i < size; i++){
+			int value = is.read();
+
+			if(value < 0){
+				throw new EOFException();
+			}
+
+			result |= ((long)value) << (8 * i);
+		}
+
+		return result;
+	}
+
+	/**
+	 * @return The size of a single array element in bytes, or <code>-1</code> if the dtype is not supported.
+	 */
+	static
+	private long getItemSize(Object descr){
+
+		if(descr instanceof String){
+			TypeDescriptor typeDescriptor = new TypeDescriptor((String)descr);
+
+			if(!PrimitiveArrayUtil.isSupported(typeDescriptor)){
+				return -1;
+			}
+
+			return typeDescriptor.getSize();
+		} else
+
+		if(descr instanceof List){
+			List<?> fields = (List<?>)descr;
+
+			long result = 0;
+
+			for(Object field : fields){
+				Object[] tuple = (Object[])field;
+
+				if(tuple.length != 2){
+					return -1;
+				}
+
+				long fieldSize = getItemSize(tuple[1]);
+				if(fieldSize < 0){
+					return -1;
+				}
+
+				result += fieldSize;
+			}
+
+			return result;
+		}
+
+		return -1;
+	}
+
+	/**
+	 * @see numpy.core.NDArrayUtil#parseArray(java.io.InputStream, String, int, Integer)
+	 */
+	static
+	private void skipPadding(MappedInputStream is, int alignmentBytes) throws IOException {
+		int padding = is.read();
+
+		if(padding < 0){
+			throw new EOFException();
+		} // End if
+
+		if(padding > alignmentBytes){
+			throw new IOException();
+		}
+
+		for(int i = 0; i < padding; i++){
+			int value = is.read();
+
+			if(value < 0){
+				throw new EOFException();
+			} // End if
+
+			if(value != 0xFF){
+				throw new IOException();
+			}
+		}
+	}
+
+	static
+	private Boolean parseOrder(String order){
+
+		switch(order){
+			case "C":
+				return Boolean.FALSE;
+			case "F":
+				return Boolean.TRUE;
+			default:
+				throw new IllegalArgumentException(order);
+		}
+	}
+
+	/**
+	 * <p>
+	 * A <code>bytearray</code> constructor, which passes through byte buffers.
+	 * </p>
+	 */
+	static
+	private class ByteBufferConstructor extends ByteArrayConstructor {
+
+		@Override
+		public Object construct(Object[] args){
+
+			if(args.length == 1 && args[0] instanceof ByteBuffer){
+				return args[0];
+			}
+
+			return super.construct(args);
+		}
+	}
+
+	/**
+	 * <p>
+	 * An unpickler that looks up Python classes in its own constructors first,
+	 * and in the global constructor registry of {@link Unpickler} second.
+	 * </p>
+	 */
+	static
+	private class ScopedUnpickler extends CustomUnpickler {
+
+		private Map<String, IObjectConstructor> constructors = null;
+
+
+		private ScopedUnpickler(Map<String, IObjectConstructor> constructors){
+			this.constructors = constructors;
+		}
+
+		@Override
+		protected Object dispatch(short key) throws IOException {
+
+			switch(key){
+				case Opcodes.GLOBAL:
+					{
+						String module = PickleUtils.readline(super.input);
+						String name = PickleUtils.readline(super.input);
+
+						super.stack.add(module);
+						super.stack.add(name);
+					}
+					// The STACK_GLOBAL opcode takes the same arguments from the stack
+					return dispatch(Opcodes.STACK_GLOBAL);
+				case Opcodes.STACK_GLOBAL:
+					{
+						String name = (String)super.stack.pop();
+						String module = (String)super.stack.pop();
+
+						IObjectConstructor constructor = this.constructors.get(module + "." + name);
+						if(constructor != null){
+							super.stack.add(constructor);
+
+							return Unpickler.NO_RETURN_VALUE;
+						}
+
+						super.stack.add(module);
+						super.stack.add(name);
+					}
+					break;
+				default:
+					break;
+			}
+
+			return super.dispatch(key);
+		}
+	}
+}
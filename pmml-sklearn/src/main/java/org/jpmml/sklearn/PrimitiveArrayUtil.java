@@ -0,0 +1,452 @@
+/*
+ * Copyright (c) 2023 Villu Ruusmann
+ *
+ * This file is part of JPMML-SkLearn
+ *
+ * JPMML-SkLearn is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-SkLearn is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-SkLearn.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.sklearn;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+import numpy.DType;
+import numpy.core.NDArray;
+import numpy.core.TypeDescriptor;
+import org.jpmml.converter.CMatrix;
+import org.jpmml.converter.Matrix;
+import org.jpmml.converter.ValueUtil;
+import org.jpmml.python.ClassDictUtil;
+import org.jpmml.python.PythonObject;
+
+/**
+ * <p>
+ * Utilities for reading numeric Numpy arrays into Java primitive arrays.
+ * </p>
+ *
+ * If the Numpy array still holds its raw data buffer (a byte array, or a memory-mapped byte buffer), then the requested column is decoded directly from it.
+ * Otherwise, the (already boxed) array content is unboxed in a single pass.
+ */
+public class PrimitiveArrayUtil {
+
+	private PrimitiveArrayUtil(){
+	}
+
+	static
+	public int[] getIntArray(PythonObject object, String name){
+		return getIntArray(object, name, null);
+	}
+
+	static
+	public int[] getIntArray(PythonObject object, String name, String key){
+		Column column = getColumn(object, name, key);
+
+		if(column != null){
+			int[] result = new int[column.size()];
+
+			for(int i = 0; i < result.length; i++){
+				result[i] = (int)column.getLong(i);
+			}
+
+			return result;
+		}
+
+		List<?> values = getValues(object, name, key);
+		if(values == null){
+			return null;
+		}
+
+		int[] result = new int[values.size()];
+
+		for(int i = 0; i < result.length; i++){
+			Number value = (Number)values.get(i);
+
+			result[i] = value.intValue();
+		}
+
+		return result;
+	}
+
+	static
+	public double[] getDoubleArray(PythonObject object, String name){
+		return getDoubleArray(object, name, null);
+	}
+
+	static
+	public double[] getDoubleArray(PythonObject object, String name, String key){
+		Column column = getColumn(object, name, key);
+
+		if(column != null){
+			double[] result = new double[column.size()];
+
+			for(int i = 0; i < result.length; i++){
+				result[i] = column.getDouble(i);
+			}
+
+			return result;
+		}
+
+		List<?> values = getValues(object, name, key);
+		if(values == null){
+			return null;
+		}
+
+		double[] result = new double[values.size()];
+
+		for(int i = 0; i < result.length; i++){
+			Number value = (Number)values.get(i);
+
+			result[i] = value.doubleValue();
+		}
+
+		return result;
+	}
+
+	/**
+	 * <p>
+	 * Reads several fields of a one-dimensional structured Numpy array.
+	 * </p>
+	 *
+	 * If the Numpy array still holds its raw data buffer, then all fields are decoded in a single pass over its records.
+	 *
+	 * @param keys The names of fields.
+	 * @param types The types of primitive arrays. Either <code>int[].class</code> or <code>double[].class</code>.
+	 *
+	 * @return Primitive arrays, in the order of keys. An absent field is represented by <code>null</code>.
+	 */
+	static
+	public List<Object> getFieldArrays(PythonObject object, String name, List<String> keys, List<? extends Class<?>> types){
+		ClassDictUtil.checkSize(keys, types);
+
+		List<Object> result = new ArrayList<>(keys.size());
+
+		List<Column> columns = new ArrayList<>(keys.size());
+
+		int size = -1;
+
+		for(int i = 0; i < keys.size(); i++){
+			String key = keys.get(i);
+			Class<?> type = types.get(i);
+
+			Column column = getColumn(object, name, key);
+
+			if(column != null){
+				size = column.size();
+
+				result.add(createArray(type, size));
+			} else
+
+			{
+				if((int[].class).equals(type)){
+					result.add(getIntArray(object, name, key));
+				} else
+
+				if((double[].class).equals(type)){
+					result.add(getDoubleArray(object, name, key));
+				} else
+
+				{
+					throw new IllegalArgumentException(String.valueOf(type));
+				}
+			}
+
+			columns.add(column);
+		}
+
+		for(int row = 0; row < size; row++){
+
+			for(int i = 0; i < columns.size(); i++){
+				Column column = columns.get(i);
+
+				if(column == null){
+					continue;
+				}
+
+				Object array = result.get(i);
+
+				if(array instanceof int[]){
+					((int[])array)[row] = (int)column.getLong(row);
+				} else
+
+				{
+					((double[])array)[row] = column.getDouble(row);
+				}
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * <p>
+	 * Reads a two-dimensional numeric Numpy array as a matrix.
+	 * </p>
+	 *
+	 * If the Numpy array still holds its raw floating-point data buffer, then the matrix is a {@link PrimitiveMatrix} view of it.
+	 * Otherwise, the matrix is backed by the (boxed) array content.
+	 */
+	static
+	public Matrix<? extends Number> getNumberMatrix(PythonObject object, String name){
+		int[] shape = object.getArrayShape(name, 2);
+
+		int rows = shape[0];
+		int columns = shape[1];
+
+		Column column = getColumn(object, name, null);
+
+		if(column != null && column.getKind() == TypeDescriptor.Kind.FLOAT){
+			return new PrimitiveMatrix(column, rows, columns);
+		}
+
+		List<? extends Number> values = object.getNumberArray(name);
+
+		return new CMatrix<>(values, rows, columns);
+	}
+
+	static
+	private Object createArray(Class<?> type, int size){
+
+		if((int[].class).equals(type)){
+			return new int[size];
+		} else
+
+		if((double[].class).equals(type)){
+			return new double[size];
+		} else
+
+		{
+			throw new IllegalArgumentException(String.valueOf(type));
+		}
+	}
+
+	static
+	private List<?> getValues(PythonObject object, String name, String key){
+
+		if(key != null){
+			return object.getArray(name, key);
+		}
+
+		return object.getArray(name);
+	}
+
+	static
+	private Column getColumn(PythonObject object, String name, String key){
+		Object value = object.get(name);
+
+		if(!(value instanceof NDArray)){
+			return null;
+		}
+
+		NDArray array = (NDArray)value;
+
+		Object data = array.getData();
+
+		ByteBuffer buffer;
+
+		if(data instanceof byte[]){
+			buffer = ByteBuffer.wrap((byte[])data);
+		} else
+
+		if(data instanceof ByteBuffer){
+			buffer = ((ByteBuffer)data).duplicate();
+		} else
+
+		{
+			return null;
+		}
+
+		Object[] shape = array.getShape();
+		Object descr = array.getDescr();
+
+		if(descr instanceof DType){
+			DType dtype = (DType)descr;
+
+			descr = dtype.toDescr();
+		}
+
+		int size = 1;
+
+		for(Object dimension : shape){
+			size *= ValueUtil.asInt((Number)dimension);
+		}
+
+		TypeDescriptor typeDescriptor = null;
+
+		int offset = 0;
+		int stride = 0;
+
+		// Simple array
+		if(key == null){
+			Boolean fortranOrder = array.getFortranOrder();
+
+			if(!(descr instanceof String) || (shape.length > 1 && fortranOrder)){
+				return null;
+			}
+
+			typeDescriptor = new TypeDescriptor((String)descr);
+
+			stride = typeDescriptor.getSize();
+		} else
+
+		// Structured array
+		{
+			if(!(descr instanceof List) || shape.length != 1){
+				return null;
+			}
+
+			List<?> fields = (List<?>)descr;
+
+			for(Object field : fields){
+				Object[] tuple = (Object[])field;
+
+				if(tuple.length != 2 || !(tuple[1] instanceof String)){
+					return null;
+				}
+
+				TypeDescriptor fieldTypeDescriptor = new TypeDescriptor((String)tuple[1]);
+
+				if((key).equals(tuple[0])){
+					typeDescriptor = fieldTypeDescriptor;
+
+					offset = stride;
+				}
+
+				stride += fieldTypeDescriptor.getSize();
+			}
+
+			if(typeDescriptor == null){
+				return null;
+			}
+		}
+
+		// Unknown padding
+		if(buffer.remaining() != (size * stride)){
+			return null;
+		}
+
+		if(!isSupported(typeDescriptor)){
+			return null;
+		}
+
+		ByteOrder byteOrder = typeDescriptor.getByteOrder();
+		if(byteOrder == null){
+			byteOrder = ByteOrder.nativeOrder();
+		}
+
+		buffer.order(byteOrder);
+
+		return new Column(buffer, typeDescriptor, offset, stride, size);
+	}
+
+	static
+	boolean isSupported(TypeDescriptor typeDescriptor){
+		TypeDescriptor.Kind kind = typeDescriptor.getKind();
+		int size = typeDescriptor.getSize();
+
+		switch(kind){
+			case BOOLEAN:
+			case INTEGER:
+			case UNSIGNED_INTEGER:
+				return (size == 1 || size == 2 || size == 4 || size == 8);
+			case FLOAT:
+				return (size == 4 || size == 8);
+			default:
+				return false;
+		}
+	}
+
+	static
+	class Column {
+
+		private ByteBuffer buffer = null;
+
+		private TypeDescriptor.Kind kind = null;
+
+		private int itemSize;
+
+		private int offset;
+
+		private int stride;
+
+		private int size;
+
+
+		private Column(ByteBuffer buffer, TypeDescriptor typeDescriptor, int offset, int stride, int size){
+			this.buffer = buffer;
+			this.kind = typeDescriptor.getKind();
+			this.itemSize = typeDescriptor.getSize();
+			this.offset = offset;
+			this.stride = stride;
+			this.size = size;
+		}
+
+		public int size(){
+			return this.size;
+		}
+
+		public TypeDescriptor.Kind getKind(){
+			return this.kind;
+		}
+
+		public int getItemSize(){
+			return this.itemSize;
+		}
+
+		public long getLong(int index){
+			int position = this.offset + (index * this.stride);
+
+			if(this.kind == TypeDescriptor.Kind.FLOAT){
+				return (long)getDouble(index);
+			}
+
+			switch(this.itemSize){
+				case 1:
+					byte byteValue = this.buffer.get(position);
+
+					return (this.kind == TypeDescriptor.Kind.INTEGER) ? byteValue : (byteValue & 0xFF);
+				case 2:
+					short shortValue = this.buffer.getShort(position);
+
+					return (this.kind == TypeDescriptor.Kind.INTEGER) ? shortValue : (shortValue & 0xFFFF);
+				case 4:
+					int intValue = this.buffer.getInt(position);
+
+					return (this.kind == TypeDescriptor.Kind.INTEGER) ? intValue : (intValue & 0xFFFFFFFFL);
+				case 8:
+					return this.buffer.getLong(position);
+				default:
+					throw new IllegalArgumentException();
+			}
+		}
+
+		public double getDouble(int index){
+			int position = this.offset + (index * this.stride);
+
+			if(this.kind != TypeDescriptor.Kind.FLOAT){
+				return (double)getLong(index);
+			}
+
+			switch(this.itemSize){
+				case 4:
+					return this.buffer.getFloat(position);
+				case 8:
+					return this.buffer.getDouble(position);
+				default:
+					throw new IllegalArgumentException();
+			}
+		}
+	}
+}
\ No newline at end of file
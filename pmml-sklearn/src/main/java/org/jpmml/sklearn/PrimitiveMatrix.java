@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2023 Villu Ruusmann
+ *
+ * This file is part of JPMML-SkLearn
+ *
+ * JPMML-SkLearn is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-SkLearn is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-SkLearn.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.sklearn;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+import org.jpmml.converter.Matrix;
+
+/**
+ * <p>
+ * A row-major matrix of floating-point values, which are decoded from the raw data buffer of a Numpy array on demand.
+ * </p>
+ *
+ * Row and column values are views, which box elements the same way as the Numpy array parser does
+ * (ie. <code>float32</code> elements as {@link Float}, and <code>float64</code> elements as {@link Double}).
+ *
+ * @see PrimitiveArrayUtil#getNumberMatrix(org.jpmml.python.PythonObject, String)
+ */
+public class PrimitiveMatrix extends Matrix<Number> {
+
+	private PrimitiveArrayUtil.Column column = null;
+
+
+	PrimitiveMatrix(PrimitiveArrayUtil.Column column, int rows, int columns){
+		super(new ValueList(column, 0, 1, rows * columns), rows, columns);
+
+		this.column = column;
+	}
+
+	public double getDouble(int row, int column){
+		int columns = getColumns();
+
+		return this.column.getDouble(row * columns + column);
+	}
+
+	@Override
+	public List<Number> getRowValues(int row){
+		int rows = getRows();
+		int columns = getColumns();
+
+		if(row < 0 || row >= rows){
+			throw new IndexOutOfBoundsException();
+		}
+
+		return new ValueList(this.column, row * columns, 1, columns);
+	}
+
+	@Override
+	public List<Number> getColumnValues(int column){
+		int rows = getRows();
+		int columns = getColumns();
+
+		if(column < 0 || column >= columns){
+			throw new IndexOutOfBoundsException();
+		}
+
+		return new ValueList(this.column, column, columns, rows);
+	}
+
+	static
+	private class ValueList extends AbstractList<Number> implements RandomAccess {
+
+		private PrimitiveArrayUtil.Column column = null;
+
+		private int offset;
+
+		private int stride;
+
+		private int size;
+
+
+		private ValueList(PrimitiveArrayUtil.Column column, int offset, int stride, int size){
+			this.column = column;
+			this.offset = offset;
+			this.stride = stride;
+			this.size = size;
+		}
+
+		@Override
+		public int size(){
+			return this.size;
+		}
+
+		@Override
+		public Number get(int index){
+
+			if(index < 0 || index >= this.size){
+				throw new IndexOutOfBoundsException();
+			}
+
+			double value = this.column.getDouble(this.offset + (index * this.stride));
+
+			if(this.column.getItemSize() == 4){
+				return (float)value;
+			}
+
+			return value;
+		}
+	}
+}
@@ -0,0 +1,376 @@
+/*
+ * Copyright (c) 2023 Villu Ruusmann
+ *
+ * This file is part of JPMML-SkLearn
+ *
+ * JPMML-SkLearn is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-SkLearn is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-SkLearn.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.sklearn;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.dmg.pmml.Model;
+import org.dmg.pmml.Visitor;
+import org.dmg.pmml.VisitorAction;
+import org.dmg.pmml.tree.Node;
+import org.jpmml.converter.PMMLEncoder;
+import org.jpmml.model.visitors.AbstractVisitor;
+
+/**
+ * <p>
+ * A per-thread recorder of conversion steps.
+ * </p>
+ *
+ * For every step, records the wall time, the number of bytes allocated by the current thread,
+ * the number of DerivedFields added to the encoder and, if requested, the number of Nodes in the resulting model.
+ * The work that is forked out to other threads (eg. parallel tree encoding) is only reflected in wall time.
+ *
+ * @see #setActive(Profiler)
+ */
+public class Profiler {
+
+	private List<Step> steps = new ArrayList<>();
+
+	private int depth = 0;
+
+	private boolean countNodes = false;
+
+
+	public Profiler(){
+		this(false);
+	}
+
+	/**
+	 * @param countNodes If <code>true</code>, then counts the Nodes of the resulting model of every step.
+	 * Counting requires a full traversal of the model, so it is not done by default.
+	 */
+	public Profiler(boolean countNodes){
+		this.countNodes = countNodes;
+	}
+
+	public List<Step> getSteps(){
+		return this.steps;
+	}
+
+	public void writeJson(Writer writer) throws IOException {
+		writer.write("{\n");
+		writer.write("\t\"steps\" : [");
+
+		for(int i = 0; i < this.steps.size(); i++){
+			Step step = this.steps.get(i);
+
+			writer.write(i > 0 ? ",\n" : "\n");
+			writer.write("\t\t{");
+			writer.write("\"phase\" : " + formatString(step.getPhase()));
+			writer.write(", \"name\" : " + formatString(step.getName()));
+			writer.write(", \"depth\" : " + step.getDepth());
+			writer.write(", \"wall_time_ns\" : " + step.getWallTime());
+			writer.write(", \"allocated_bytes\" : " + step.getAllocatedBytes());
+			writer.write(", \"derived_fields\" : " + step.getDerivedFields());
+			writer.write(", \"nodes\" : " + step.getNodes());
+			writer.write("}");
+		}
+
+		writer.write(this.steps.isEmpty() ? "]\n" : "\n\t]\n");
+		writer.write("}\n");
+	}
+
+	public String toJson(){
+		StringWriter writer = new StringWriter();
+
+		try {
+			writeJson(writer);
+		} catch(IOException ioe){
+			throw new UncheckedIOException(ioe);
+		}
+
+		return writer.toString();
+	}
+
+	private Step startStep(String phase, String name, PMMLEncoder encoder){
+		Step step = new Step(phase, name, this.depth, encoder);
+
+		this.steps.add(step);
+
+		this.depth++;
+
+		return step;
+	}
+
+	private void finishStep(Step step, Model model){
+		this.depth = step.getDepth();
+
+		step.finish(this.countNodes ? model : null);
+	}
+
+	/**
+	 * @param encoder The encoder whose DerivedFields should be counted, or <code>null</code>.
+	 *
+	 * @return The started step, or <code>null</code> if there is no active profiler for the current thread.
+	 */
+	static
+	public Step start(String phase, String name, PMMLEncoder encoder){
+		Profiler profiler = Profiler.active.get();
+
+		if(profiler == null){
+			return null;
+		}
+
+		return profiler.startStep(phase, name, encoder);
+	}
+
+	static
+	public void finish(Step step){
+		finish(step, null);
+	}
+
+	/**
+	 * <p>
+	 * Finishes the step.
+	 * Should be called from a <code>finally</code> block, so that the depth of subsequent steps stays correct if the step fails.
+	 * </p>
+	 *
+	 * @param model The model whose Nodes should be counted (if requested), or <code>null</code>.
+	 */
+	static
+	public void finish(Step step, Model model){
+
+		if(step == null){
+			return;
+		}
+
+		Profiler profiler = Profiler.active.get();
+
+		if(profiler != null){
+			profiler.finishStep(step, model);
+		}
+	}
+
+	public boolean getCountNodes(){
+		return this.countNodes;
+	}
+
+	static
+	public Profiler getActive(){
+		return Profiler.active.get();
+	}
+
+	/**
+	 * <p>
+	 * Activates or deactivates profiling for the current thread.
+	 * </p>
+	 */
+	static
+	public void setActive(Profiler profiler){
+
+		if(profiler != null){
+			Profiler.active.set(profiler);
+		} else
+
+		{
+			Profiler.active.remove();
+		}
+	}
+
+	static
+	private String formatString(String string){
+
+		if(string == null){
+			return "null";
+		}
+
+		StringBuilder sb = new StringBuilder();
+
+		sb.append('\"');
+
+		for(int i = 0; i < string.length(); i++){
+			char c = string.charAt(i);
+
+			switch(c){
+				case '\"':
+				case '\\':
+					sb.append('\\').append(c);
+					break;
+				default:
+					if(c < 0x20){
+						sb.append(String.format("\\u%04x", (int)c));
+					} else
+
+					{
+						sb.append(c);
+					}
+					break;
+			}
+		}
+
+		sb.append('\"');
+
+		return sb.toString();
+	}
+
+	static
+	private long getAllocatedBytes(){
+
+		if(Profiler.threadMXBean != null){
+			return Profiler.threadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+
+		return -1L;
+	}
+
+	static
+	private com.sun.management.ThreadMXBean loadThreadMXBean(){
+		ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+		if(threadMXBean instanceof com.sun.management.ThreadMXBean){
+			com.sun.management.ThreadMXBean sunThreadMXBean = (com.sun.management.ThreadMXBean)threadMXBean;
+
+			if(sunThreadMXBean.isThreadAllocatedMemorySupported() && sunThreadMXBean.isThreadAllocatedMemoryEnabled()){
+				return sunThreadMXBean;
+			}
+		}
+
+		return null;
+	}
+
+	static
+	private int countNodes(Model model){
+		int[] count = {0};
+
+		Visitor nodeCounter = new AbstractVisitor(){
+
+			@Override
+			public VisitorAction visit(Node node){
+				count[0]++;
+
+				return super.visit(node);
+			}
+		};
+		nodeCounter.applyTo(model);
+
+		return count[0];
+	}
+
+	static
+	public class Step {
+
+		private String phase = null;
+
+		private String name = null;
+
+		private int depth;
+
+		private PMMLEncoder encoder = null;
+
+		private long startTime;
+
+		private long startAllocatedBytes;
+
+		private long wallTime = -1L;
+
+		private long allocatedBytes = -1L;
+
+		private Integer derivedFields = null;
+
+		private Integer nodes = null;
+
+
+		private Step(String phase, String name, int depth, PMMLEncoder encoder){
+			this.phase = phase;
+			this.name = name;
+			this.depth = depth;
+			this.encoder = encoder;
+
+			if(encoder != null){
+				this.derivedFields = (encoder.getDerivedFields()).size();
+			}
+
+			this.startAllocatedBytes = Profiler.getAllocatedBytes();
+			this.startTime = System.nanoTime();
+		}
+
+		private void finish(Model model){
+			this.wallTime = (System.nanoTime() - this.startTime);
+
+			if(this.startAllocatedBytes != -1L){
+				this.allocatedBytes = (Profiler.getAllocatedBytes() - this.startAllocatedBytes);
+			}
+
+			PMMLEncoder encoder = this.encoder;
+			if(encoder != null){
+				this.derivedFields = (encoder.getDerivedFields()).size() - this.derivedFields;
+
+				this.encoder = null;
+			} // End if
+
+			if(model != null){
+				this.nodes = countNodes(model);
+			}
+		}
+
+		public String getPhase(){
+			return this.phase;
+		}
+
+		public String getName(){
+			return this.name;
+		}
+
+		public int getDepth(){
+			return this.depth;
+		}
+
+		/**
+		 * @return The wall time in nanoseconds, or <code>-1</code> if the step did not finish.
+		 */
+		public long getWallTime(){
+			return this.wallTime;
+		}
+
+		/**
+		 * @return The number of allocated bytes, or <code>-1</code> if the step did not finish or the JVM does not support thread allocation accounting.
+		 */
+		public long getAllocatedBytes(){
+			return this.allocatedBytes;
+		}
+
+		public Integer getDerivedFields(){
+			return this.derivedFields;
+		}
+
+		public Integer getNodes(){
+			return this.nodes;
+		}
+	}
+
+	public static final String PHASE_PARSE = "parse";
+	public static final String PHASE_CONVERT = "convert";
+	public static final String PHASE_MARSHAL = "marshal";
+
+	public static final String PHASE_TRANSFORMER = "transformer";
+	public static final String PHASE_ESTIMATOR = "estimator";
+	public static final String PHASE_VISITOR = "visitor";
+	public static final String PHASE_OUTPUT = "output";
+
+	private static final ThreadLocal<Profiler> active = new ThreadLocal<>();
+
+	private static final com.sun.management.ThreadMXBean threadMXBean = loadThreadMXBean();
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) 2023 Villu Ruusmann
+ *
+ * This file is part of JPMML-SkLearn
+ *
+ * JPMML-SkLearn is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-SkLearn is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-SkLearn.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.sklearn;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.dmg.pmml.TableLocator;
+import org.jpmml.converter.PMMLUtil;
+import org.jpmml.converter.ValueUtil;
+
+/**
+ * <p>
+ * Utilities for storing large tables outside of the PMML document.
+ * </p>
+ *
+ * The table is written into a CSV file, whose header row contains column names.
+ * Missing values are written as empty fields.
+ * The {@link TableLocator} element identifies the file using "location" and "format" extensions.
+ *
+ * <p>
+ * File locations come from untrusted sources (eg. pickled estimator options).
+ * They must be relative paths, which are resolved against a trusted table directory,
+ * and which may not refer to a parent directory.
+ * The location that is recorded in the {@link TableLocator} element is relative to the same directory,
+ * which should be the directory of the PMML file.
+ * </p>
+ *
+ * @see #setDirectory(File)
+ */
+public class TableLocatorUtil {
+
+	private TableLocatorUtil(){
+	}
+
+	/**
+	 * @param location A relative path, which is resolved against the table directory of the current thread.
+	 *
+	 * @throws IllegalStateException If the table directory of the current thread is not set.
+	 */
+	static
+	public TableLocator createTableLocator(Map<String, ? extends List<?>> data, String location) throws IOException {
+		File dir = getDirectory();
+
+		if(dir == null){
+			throw new IllegalStateException("The table directory is not set");
+		}
+
+		return createTableLocator(data, dir, location);
+	}
+
+	/**
+	 * @param dir The table directory.
+	 * @param location A relative path, which is resolved against the table directory.
+	 *
+	 * @throws IllegalArgumentException If the location is not a relative path, or if it refers to a parent directory.
+	 */
+	static
+	public TableLocator createTableLocator(Map<String, ? extends List<?>> data, File dir, String location) throws IOException {
+		Path path = toRelativePath(location);
+
+		File file = new File(dir, path.toString());
+
+		List<String> names = new ArrayList<>(data.keySet());
+		List<List<?>> columns = new ArrayList<>(data.values());
+
+		int rows = -1;
+
+		for(List<?> column : columns){
+
+			if(rows == -1){
+				rows = column.size();
+			} else
+
+			{
+				if(rows != column.size()){
+					throw new IllegalArgumentException();
+				}
+			}
+		}
+
+		try(Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)){
+			writeRow(writer, names);
+
+			List<Object> values = new ArrayList<>(columns.size());
+
+			for(int row = 0; row < rows; row++){
+				values.clear();
+
+				for(List<?> column : columns){
+					values.add(column.get(row));
+				}
+
+				writeRow(writer, values);
+			}
+		}
+
+		TableLocator tableLocator = new TableLocator()
+			.addExtensions(PMMLUtil.createExtension(TableLocatorUtil.EXTENSION_LOCATION, formatPath(path)), PMMLUtil.createExtension(TableLocatorUtil.EXTENSION_FORMAT, TableLocatorUtil.FORMAT_CSV));
+
+		return tableLocator;
+	}
+
+	static
+	public File getDirectory(){
+		return TableLocatorUtil.directory.get();
+	}
+
+	/**
+	 * <p>
+	 * Sets or clears the table directory for the current thread.
+	 * </p>
+	 *
+	 * Tables cannot be written into files, unless the table directory has been set by a trusted party (eg. a command-line application).
+	 */
+	static
+	public void setDirectory(File dir){
+
+		if(dir != null){
+			TableLocatorUtil.directory.set(dir);
+		} else
+
+		{
+			TableLocatorUtil.directory.remove();
+		}
+	}
+
+	static
+	private Path toRelativePath(String location){
+		Path path;
+
+		try {
+			path = Paths.get(location);
+		} catch(InvalidPathException ipe){
+			throw new IllegalArgumentException("Location \'" + location + "\' is not a valid path", ipe);
+		}
+
+		if(path.isAbsolute() || path.getRoot() != null){
+			throw new IllegalArgumentException("Location \'" + location + "\' is not a relative path");
+		}
+
+		for(Path name : path){
+
+			if(("..").equals(name.toString())){
+				throw new IllegalArgumentException("Location \'" + location + "\' refers to a parent directory");
+			}
+		}
+
+		path = path.normalize();
+
+		if((path.toString()).isEmpty()){
+			throw new IllegalArgumentException("Location \'" + location + "\' does not name a file");
+		}
+
+		return path;
+	}
+
+	static
+	private String formatPath(Path path){
+		StringBuilder sb = new StringBuilder();
+
+		for(Path name : path){
+
+			if(sb.length() > 0){
+				sb.append('/');
+			}
+
+			sb.append(name.toString());
+		}
+
+		return sb.toString();
+	}
+
+	static
+	private void writeRow(Writer writer, List<?> values) throws IOException {
+
+		for(int i = 0; i < values.size(); i++){
+			Object value = values.get(i);
+
+			if(i > 0){
+				writer.write(',');
+			} // End if
+
+			if(value == null){
+				continue;
+			}
+
+			writer.write(formatValue(ValueUtil.asString(value)));
+		}
+
+		writer.write('\n');
+	}
+
+	static
+	private String formatValue(String value){
+
+		if(value.indexOf(',') > -1 || value.indexOf('\"') > -1 || value.indexOf('\n') > -1 || value.indexOf('\r') > -1){
+			return "\"" + value.replace("\"", "\"\"") + "\"";
+		}
+
+		return value;
+	}
+
+	public static final String EXTENSION_FORMAT = "format";
+	public static final String EXTENSION_LOCATION = "location";
+
+	public static final String FORMAT_CSV = "csv";
+
+	private static final ThreadLocal<File> directory = new ThreadLocal<>();
+}
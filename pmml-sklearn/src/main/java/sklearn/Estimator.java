@@ -33,6 +33,7 @@ import org.jpmml.converter.Label;
 import org.jpmml.converter.ModelEncoder;
 import org.jpmml.converter.Schema;
 import org.jpmml.python.ClassDictUtil;
+import org.jpmml.sklearn.Profiler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import sklearn2pmml.SkLearn2PMMLFields;
@@ -112,28 +113,36 @@ public class Estimator extends Step implements HasNumberOfOutputs {
 	}
 
 	public Model encode(Schema schema){
-		checkLabel(schema.getLabel());
-		checkFeatures(schema.getFeatures());
+		Profiler.Step step = Profiler.start(Profiler.PHASE_ESTIMATOR, getClassName(), schema.getEncoder());
 
-		Model model = encodeModel(schema);
+		Model model = null;
 
-		String modelName = model.getModelName();
-		if(modelName == null){
-			String pmmlName = getPMMLName();
+		try {
+			checkLabel(schema.getLabel());
+			checkFeatures(schema.getFeatures());
 
-			if(pmmlName != null){
-				model.setModelName(pmmlName);
+			model = encodeModel(schema);
+
+			String modelName = model.getModelName();
+			if(modelName == null){
+				String pmmlName = getPMMLName();
+
+				if(pmmlName != null){
+					model.setModelName(pmmlName);
+				}
 			}
-		}
 
-		String algorithmName = model.getAlgorithmName();
-		if(algorithmName == null){
-			String pyClassName = getAlgorithmName();
+			String algorithmName = model.getAlgorithmName();
+			if(algorithmName == null){
+				String pyClassName = getAlgorithmName();
 
-			model.setAlgorithmName(pyClassName);
-		}
+				model.setAlgorithmName(pyClassName);
+			}
 
-		addFeatureImportances(model, schema);
+			addFeatureImportances(model, schema);
+		} finally {
+			Profiler.finish(step, model);
+		}
 
 		return model;
 	}
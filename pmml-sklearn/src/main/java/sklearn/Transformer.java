@@ -30,6 +30,7 @@ import org.jpmml.python.CastFunction;
 import org.jpmml.python.ClassDictUtil;
 import org.jpmml.python.PythonTypeUtil;
 import org.jpmml.python.TypeInfo;
+import org.jpmml.sklearn.Profiler;
 import org.jpmml.sklearn.SkLearnEncoder;
 
 abstract
@@ -63,11 +64,19 @@ public class Transformer extends Step {
 	}
 
 	public List<Feature> encode(List<Feature> features, SkLearnEncoder encoder){
-		checkFeatures(features);
+		Profiler.Step step = Profiler.start(Profiler.PHASE_TRANSFORMER, getClassName(), encoder);
 
-		features = updateFeatures(features, encoder);
+		try {
+			checkFeatures(features);
+
+			features = updateFeatures(features, encoder);
+
+			features = encodeFeatures(features, encoder);
+		} finally {
+			Profiler.finish(step);
+		}
 
-		return encodeFeatures(features, encoder);
+		return features;
 	}
 
 	public void checkFeatures(List<? extends Feature> features){
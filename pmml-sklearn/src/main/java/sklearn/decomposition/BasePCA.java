@@ -20,6 +20,8 @@ package sklearn.decomposition;
 
 import java.util.List;
 
+import org.jpmml.converter.Matrix;
+import org.jpmml.sklearn.PrimitiveArrayUtil;
 import sklearn.Transformer;
 
 abstract
@@ -40,6 +42,10 @@ public class BasePCA extends Transformer {
 		return getNumberArray("components_");
 	}
 
+	public Matrix<? extends Number> getComponentsMatrix(){
+		return PrimitiveArrayUtil.getNumberMatrix(this, "components_");
+	}
+
 	public int[] getComponentsShape(){
 		return getArrayShape("components_", 2);
 	}
@@ -25,10 +25,10 @@ import org.dmg.pmml.Apply;
 import org.dmg.pmml.DerivedField;
 import org.dmg.pmml.Expression;
 import org.dmg.pmml.PMMLFunctions;
-import org.jpmml.converter.CMatrixUtil;
 import org.jpmml.converter.ContinuousFeature;
 import org.jpmml.converter.Feature;
 import org.jpmml.converter.FieldNameUtil;
+import org.jpmml.converter.Matrix;
 import org.jpmml.converter.PMMLUtil;
 import org.jpmml.converter.ValueUtil;
 import org.jpmml.python.ClassDictUtil;
@@ -47,7 +47,7 @@ public class PCA extends BasePCA {
 		int numberOfComponents = shape[0];
 		int numberOfFeatures = shape[1];
 
-		List<? extends Number> components = getComponents();
+		Matrix<? extends Number> components = getComponentsMatrix();
 		List<? extends Number> mean = getMean();
 
 		ClassDictUtil.checkSize(numberOfFeatures, features, mean);
@@ -63,7 +63,7 @@ public class PCA extends BasePCA {
 		List<Feature> result = new ArrayList<>();
 
 		for(int i = 0; i < numberOfComponents; i++){
-			List<? extends Number> component = CMatrixUtil.getRow(components, numberOfComponents, numberOfFeatures, i);
+			List<? extends Number> component = components.getRowValues(i);
 
 			Apply apply = PMMLUtil.createApply(PMMLFunctions.SUM);
 
@@ -25,10 +25,10 @@ import org.dmg.pmml.DataType;
 import org.dmg.pmml.Model;
 import org.dmg.pmml.OpType;
 import org.dmg.pmml.regression.RegressionModel;
-import org.jpmml.converter.CMatrixUtil;
 import org.jpmml.converter.CategoricalLabel;
 import org.jpmml.converter.Feature;
 import org.jpmml.converter.FieldNameUtil;
+import org.jpmml.converter.Matrix;
 import org.jpmml.converter.ModelUtil;
 import org.jpmml.converter.Schema;
 import org.jpmml.converter.SchemaUtil;
@@ -69,9 +69,8 @@ public class LinearDiscriminantAnalysis extends LinearClassifier {
 		int[] shape = getCoefShape();
 
 		int numberOfClasses = shape[0];
-		int numberOfFeatures = shape[1];
 
-		List<? extends Number> coef = getCoef();
+		Matrix<? extends Number> coef = getCoefMatrix();
 		List<? extends Number> intercept = getIntercept();
 
 		CategoricalLabel categoricalLabel = (CategoricalLabel)schema.getLabel();
@@ -92,7 +91,7 @@ public class LinearDiscriminantAnalysis extends LinearClassifier {
 			List<RegressionModel> regressionModels = new ArrayList<>();
 
 			for(int i = 0, rows = categoricalLabel.size(); i < rows; i++){
-				RegressionModel regressionModel = RegressionModelUtil.createRegression(features, CMatrixUtil.getRow(coef, numberOfClasses, numberOfFeatures, i), intercept.get(i), RegressionModel.NormalizationMethod.NONE, segmentSchema)
+				RegressionModel regressionModel = RegressionModelUtil.createRegression(features, coef.getRowValues(i), intercept.get(i), RegressionModel.NormalizationMethod.NONE, segmentSchema)
 					.setOutput(ModelUtil.createPredictedOutput(FieldNameUtil.create(Estimator.FIELD_DECISION_FUNCTION, categoricalLabel.getValue(i)), OpType.CONTINUOUS, DataType.DOUBLE));
 
 				regressionModels.add(regressionModel);
@@ -19,8 +19,10 @@
 package sklearn.ensemble.forest;
 
 import java.util.List;
+import java.util.function.Function;
 
 import org.dmg.pmml.MiningFunction;
+import org.dmg.pmml.Visitor;
 import org.dmg.pmml.mining.MiningModel;
 import org.dmg.pmml.mining.Segmentation;
 import org.dmg.pmml.tree.TreeModel;
@@ -32,6 +34,7 @@ import sklearn.HasEstimatorEnsemble;
 import sklearn.tree.HasTree;
 import sklearn.tree.HasTreeOptions;
 import sklearn.tree.TreeUtil;
+import sklearn.tree.visitors.TreeModelDeduplicator;
 
 public class ForestUtil {
 
@@ -47,11 +50,24 @@ public class ForestUtil {
 
 	static
 	public <E extends Estimator & HasEstimatorEnsemble<T> & HasTreeOptions, T extends Estimator & HasTree> MiningModel encodeBaseForest(E estimator, Segmentation.MultipleModelMethod multipleModelMethod, MiningFunction miningFunction, Schema schema){
-		List<TreeModel> treeModels = TreeUtil.encodeTreeModelEnsemble(estimator, miningFunction, schema);
+		Function<TreeModel, TreeModel> treeModelTransformer = TreeUtil.createTreeModelTransformer(estimator);
+
+		List<TreeModel> treeModels = TreeUtil.encodeTreeModelEnsemble(estimator, miningFunction, treeModelTransformer, schema);
 
 		MiningModel miningModel = new MiningModel(miningFunction, ModelUtil.createMiningSchema(schema.getLabel()))
 			.setSegmentation(MiningModelUtil.createSegmentation(multipleModelMethod, Segmentation.MissingPredictionTreatment.RETURN_MISSING, treeModels));
 
-		return TreeUtil.transform(estimator, miningModel);
+		if(treeModelTransformer == null){
+			miningModel = TreeUtil.transform(estimator, miningModel);
+		}
+
+		Boolean deduplicate = (Boolean)estimator.getOption(HasTreeOptions.OPTION_DEDUPLICATE, Boolean.FALSE);
+		if(deduplicate){
+			Visitor treeModelDeduplicator = new TreeModelDeduplicator();
+
+			treeModelDeduplicator.applyTo(miningModel);
+		}
+
+		return miningModel;
 	}
 }
\ No newline at end of file
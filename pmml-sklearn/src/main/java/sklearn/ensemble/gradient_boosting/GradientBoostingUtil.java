@@ -19,6 +19,7 @@
 package sklearn.ensemble.gradient_boosting;
 
 import java.util.List;
+import java.util.function.Function;
 
 import org.dmg.pmml.MiningFunction;
 import org.dmg.pmml.mining.MiningModel;
@@ -43,12 +44,18 @@ public class GradientBoostingUtil {
 	public <E extends Estimator & HasEstimatorEnsemble<TreeRegressor> & HasTreeOptions> MiningModel encodeGradientBoosting(E estimator, Number initialPrediction, Number learningRate, Schema schema){
 		ContinuousLabel continuousLabel = (ContinuousLabel)schema.getLabel();
 
-		List<TreeModel> treeModels = TreeUtil.encodeTreeModelEnsemble(estimator, MiningFunction.REGRESSION, schema);
+		Function<TreeModel, TreeModel> treeModelTransformer = TreeUtil.createTreeModelTransformer(estimator);
+
+		List<TreeModel> treeModels = TreeUtil.encodeTreeModelEnsemble(estimator, MiningFunction.REGRESSION, treeModelTransformer, schema);
 
 		MiningModel miningModel = new MiningModel(MiningFunction.REGRESSION, ModelUtil.createMiningSchema(continuousLabel))
 			.setSegmentation(MiningModelUtil.createSegmentation(Segmentation.MultipleModelMethod.SUM, Segmentation.MissingPredictionTreatment.RETURN_MISSING, treeModels))
 			.setTargets(ModelUtil.createRescaleTargets(learningRate, initialPrediction, continuousLabel));
 
+		if(treeModelTransformer != null){
+			return miningModel;
+		}
+
 		return TreeUtil.transform(estimator, miningModel);
 	}
 }
\ No newline at end of file
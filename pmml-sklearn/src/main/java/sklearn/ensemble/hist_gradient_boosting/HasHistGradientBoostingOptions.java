@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2023 Villu Ruusmann
+ *
+ * This file is part of JPMML-SkLearn
+ *
+ * JPMML-SkLearn is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-SkLearn is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-SkLearn.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package sklearn.ensemble.hist_gradient_boosting;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.dmg.pmml.Discretize;
+import org.jpmml.sklearn.HasSkLearnOptions;
+
+public interface HasHistGradientBoostingOptions extends HasSkLearnOptions {
+
+	/**
+	 * <p>
+	 * If <code>true</code>, then continuous features are discretized into bin indices (one {@link Discretize} transformation per feature),
+	 * and numeric splits are performed on bin indices rather than on raw values.
+	 * </p>
+	 *
+	 * @see HistGradientBoostingUtil#encodeBinFeatures(BinMapper, org.jpmml.converter.Schema)
+	 */
+	String OPTION_BIN_INDEX = "bin_index";
+
+	/**
+	 * @see ForkJoinPool#commonPool()
+	 */
+	String OPTION_PARALLEL = "parallel";
+}
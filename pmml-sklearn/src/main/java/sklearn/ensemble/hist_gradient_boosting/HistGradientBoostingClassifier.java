@@ -18,9 +18,9 @@
  */
 package sklearn.ensemble.hist_gradient_boosting;
 
-import java.util.ArrayList;
 import java.util.List;
 
+import com.google.common.collect.Iterables;
 import org.dmg.pmml.DataType;
 import org.dmg.pmml.OpType;
 import org.dmg.pmml.mining.MiningModel;
@@ -38,7 +38,7 @@ import sklearn.Estimator;
 import sklearn.loss.HalfBinomialLoss;
 import sklearn.loss.HalfMultinomialLoss;
 
-public class HistGradientBoostingClassifier extends Classifier {
+public class HistGradientBoostingClassifier extends Classifier implements HasHistGradientBoostingOptions {
 
 	public HistGradientBoostingClassifier(String module, String name){
 		super(module, name);
@@ -52,6 +52,9 @@ public class HistGradientBoostingClassifier extends Classifier {
 		int numberOfTreesPerIteration = getNumberOfTreesPerIteration();
 		List<List<TreePredictor>> predictors = getPredictors();
 
+		Boolean binIndex = (Boolean)getOption(HasHistGradientBoostingOptions.OPTION_BIN_INDEX, Boolean.FALSE);
+		Boolean parallel = (Boolean)getOption(HasHistGradientBoostingOptions.OPTION_PARALLEL, Boolean.FALSE);
+
 		if(!predictors.isEmpty()){
 			ClassDictUtil.checkSize(numberOfTreesPerIteration, predictors.get(0), baselinePredictions);
 		}
@@ -67,7 +70,9 @@ public class HistGradientBoostingClassifier extends Classifier {
 				throw new IllegalArgumentException();
 			}
 
-			MiningModel miningModel = HistGradientBoostingUtil.encodeHistGradientBoosting(predictors, binMapper, baselinePredictions, 0, segmentSchema)
+			List<MiningModel> miningModels = HistGradientBoostingUtil.encodeHistGradientBoosting(predictors, binMapper, baselinePredictions, parallel, binIndex, segmentSchema);
+
+			MiningModel miningModel = Iterables.getOnlyElement(miningModels)
 				.setOutput(ModelUtil.createPredictedOutput(FieldNameUtil.create(Estimator.FIELD_DECISION_FUNCTION, categoricalLabel.getValue(1)), OpType.CONTINUOUS, DataType.DOUBLE));
 
 			return MiningModelUtil.createBinaryLogisticClassification(miningModel, 1d, 0d, RegressionModel.NormalizationMethod.LOGIT, true, schema);
@@ -80,13 +85,12 @@ public class HistGradientBoostingClassifier extends Classifier {
 				throw new IllegalArgumentException();
 			}
 
-			List<MiningModel> miningModels = new ArrayList<>();
+			List<MiningModel> miningModels = HistGradientBoostingUtil.encodeHistGradientBoosting(predictors, binMapper, baselinePredictions, parallel, binIndex, segmentSchema);
 
 			for(int i = 0, columns = categoricalLabel.size(); i < columns; i++){
-				MiningModel miningModel = HistGradientBoostingUtil.encodeHistGradientBoosting(predictors, binMapper, baselinePredictions, i, segmentSchema)
-					.setOutput(ModelUtil.createPredictedOutput(FieldNameUtil.create(Estimator.FIELD_DECISION_FUNCTION, categoricalLabel.getValue(i)), OpType.CONTINUOUS, DataType.DOUBLE));
+				MiningModel miningModel = miningModels.get(i);
 
-				miningModels.add(miningModel);
+				miningModel.setOutput(ModelUtil.createPredictedOutput(FieldNameUtil.create(Estimator.FIELD_DECISION_FUNCTION, categoricalLabel.getValue(i)), OpType.CONTINUOUS, DataType.DOUBLE));
 			}
 
 			return MiningModelUtil.createClassification(miningModels, RegressionModel.NormalizationMethod.SOFTMAX, true, schema);
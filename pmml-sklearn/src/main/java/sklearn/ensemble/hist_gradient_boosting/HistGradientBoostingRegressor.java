@@ -21,11 +21,12 @@ package sklearn.ensemble.hist_gradient_boosting;
 import java.util.Collections;
 import java.util.List;
 
+import com.google.common.collect.Iterables;
 import org.dmg.pmml.mining.MiningModel;
 import org.jpmml.converter.Schema;
 import sklearn.Regressor;
 
-public class HistGradientBoostingRegressor extends Regressor {
+public class HistGradientBoostingRegressor extends Regressor implements HasHistGradientBoostingOptions {
 
 	public HistGradientBoostingRegressor(String module, String name){
 		super(module, name);
@@ -37,7 +38,12 @@ public class HistGradientBoostingRegressor extends Regressor {
 		BinMapper binMapper = getBinMapper();
 		List<List<TreePredictor>> predictors = getPredictors();
 
-		return HistGradientBoostingUtil.encodeHistGradientBoosting(predictors, binMapper, Collections.singletonList(baselinePrediction), 0, schema);
+		Boolean binIndex = (Boolean)getOption(HasHistGradientBoostingOptions.OPTION_BIN_INDEX, Boolean.FALSE);
+		Boolean parallel = (Boolean)getOption(HasHistGradientBoostingOptions.OPTION_PARALLEL, Boolean.FALSE);
+
+		List<MiningModel> miningModels = HistGradientBoostingUtil.encodeHistGradientBoosting(predictors, binMapper, Collections.singletonList(baselinePrediction), parallel, binIndex, schema);
+
+		return Iterables.getOnlyElement(miningModels);
 	}
 
 	public Number getBaselinePrediction(){
@@ -21,17 +21,31 @@ package sklearn.ensemble.hist_gradient_boosting;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import org.dmg.pmml.DataType;
+import org.dmg.pmml.DerivedField;
+import org.dmg.pmml.Discretize;
+import org.dmg.pmml.DiscretizeBin;
+import org.dmg.pmml.Interval;
 import org.dmg.pmml.MiningFunction;
+import org.dmg.pmml.OpType;
 import org.dmg.pmml.mining.MiningModel;
 import org.dmg.pmml.mining.Segmentation;
 import org.dmg.pmml.tree.TreeModel;
+import org.jpmml.converter.BinaryFeature;
+import org.jpmml.converter.CategoricalFeature;
+import org.jpmml.converter.ContinuousFeature;
 import org.jpmml.converter.ContinuousLabel;
+import org.jpmml.converter.Feature;
+import org.jpmml.converter.FieldNameUtil;
+import org.jpmml.converter.MissingValueFeature;
 import org.jpmml.converter.ModelUtil;
+import org.jpmml.converter.PMMLEncoder;
 import org.jpmml.converter.PredicateManager;
 import org.jpmml.converter.Schema;
 import org.jpmml.converter.mining.MiningModelUtil;
+import org.jpmml.python.ClassDictUtil;
 
 public class HistGradientBoostingUtil {
 
@@ -51,8 +65,6 @@ public class HistGradientBoostingUtil {
 
 	static
 	public MiningModel encodeHistGradientBoosting(List<TreePredictor> treePredictors, BinMapper binMapper, Number baselinePrediction, Schema schema){
-		ContinuousLabel continuousLabel = (ContinuousLabel)schema.getLabel();
-
 		PredicateManager predicateManager = new PredicateManager();
 
 		Schema segmentSchema = schema.toAnonymousRegressorSchema(DataType.DOUBLE);
@@ -65,6 +77,153 @@ public class HistGradientBoostingUtil {
 			treeModels.add(treeModel);
 		}
 
+		return encodeMiningModel(treeModels, baselinePrediction, schema);
+	}
+
+	/**
+	 * <p>
+	 * Encodes one mining model per column of baseline predictions.
+	 * </p>
+	 *
+	 * @param parallel If <code>true</code>, then the tree models of all columns are encoded using the common fork-join pool.
+	 * @param binIndex If <code>true</code>, then continuous features are discretized into bin indices, and numeric splits are performed on them.
+	 *
+	 * @see #encodeBinFeatures(BinMapper, Schema)
+	 */
+	static
+	public List<MiningModel> encodeHistGradientBoosting(List<List<TreePredictor>> predictors, BinMapper binMapper, List<? extends Number> baselinePredictions, boolean parallel, boolean binIndex, Schema schema){
+		int columns = baselinePredictions.size();
+		int iterations = predictors.size();
+
+		Schema segmentSchema = schema.toAnonymousRegressorSchema(DataType.DOUBLE);
+
+		List<Feature> binFeatures = (binIndex ? encodeBinFeatures(binMapper, segmentSchema) : null);
+
+		if(!parallel){
+			List<MiningModel> result = new ArrayList<>();
+
+			for(int column = 0; column < columns; column++){
+				PredicateManager predicateManager = new PredicateManager();
+
+				List<TreeModel> treeModels = new ArrayList<>();
+
+				for(int iteration = 0; iteration < iterations; iteration++){
+					TreePredictorArrays treeArrays = new TreePredictorArrays((predictors.get(iteration)).get(column));
+
+					TreeModel treeModel = TreePredictorUtil.encodeTreeModel(treeArrays, binMapper, binFeatures, predicateManager, segmentSchema);
+
+					treeModels.add(treeModel);
+				}
+
+				MiningModel miningModel = encodeMiningModel(treeModels, baselinePredictions.get(column), schema);
+
+				result.add(miningModel);
+			}
+
+			return result;
+		}
+
+		// Column-major order
+		List<TreePredictorArrays> treePredictorArrays = new ArrayList<>(columns * iterations);
+
+		// The encoder is not thread-safe.
+		// Perform all encoder interactions sequentially, in the same order as the sequential mode does
+		for(int column = 0; column < columns; column++){
+
+			for(int iteration = 0; iteration < iterations; iteration++){
+				TreePredictorArrays treeArrays = new TreePredictorArrays((predictors.get(iteration)).get(column));
+
+				TreePredictorUtil.encodeSplitFeatures(treeArrays, binFeatures, segmentSchema);
+
+				treePredictorArrays.add(treeArrays);
+			}
+		}
+
+		// One predicate manager per column, the same as the sequential mode does.
+		// The predicate manager is thread-safe, and produces equal predicates regardless of the encoding order
+		List<PredicateManager> predicateManagers = new ArrayList<>();
+
+		for(int column = 0; column < columns; column++){
+			predicateManagers.add(new PredicateManager());
+		}
+
+		List<TreeModel> treeModels = IntStream.range(0, columns * iterations).parallel()
+			.mapToObj(i -> TreePredictorUtil.encodeTreeModel(treePredictorArrays.get(i), binMapper, binFeatures, predicateManagers.get(i / iterations), segmentSchema))
+			.collect(Collectors.toList());
+
+		List<MiningModel> result = new ArrayList<>();
+
+		for(int column = 0; column < columns; column++){
+			MiningModel miningModel = encodeMiningModel(treeModels.subList(column * iterations, (column + 1) * iterations), baselinePredictions.get(column), schema);
+
+			result.add(miningModel);
+		}
+
+		return result;
+	}
+
+	/**
+	 * <p>
+	 * Encodes a bin index feature for every continuous feature.
+	 * </p>
+	 *
+	 * The bin index of a value is the number of bin thresholds that are less than it,
+	 * which is the same as the binning of the <code>BinMapper.transform(X)</code> method.
+	 * Therefore, a numeric split <code>x &lt;= num_threshold</code> is equivalent to <code>bin_index(x) &lt;= bin_threshold</code>.
+	 *
+	 * @return A list of bin index features, with <code>null</code> elements in place of binary and categorical features.
+	 */
+	static
+	public List<Feature> encodeBinFeatures(BinMapper binMapper, Schema schema){
+		PMMLEncoder encoder = schema.getEncoder();
+		List<? extends Feature> features = schema.getFeatures();
+
+		List<List<Number>> binThresholds = binMapper.getBinThresholds();
+
+		ClassDictUtil.checkSize(features, binThresholds);
+
+		List<Feature> result = new ArrayList<>();
+
+		for(int i = 0; i < features.size(); i++){
+			Feature feature = features.get(i);
+			List<Number> thresholds = binThresholds.get(i);
+
+			if((feature instanceof BinaryFeature) || (feature instanceof MissingValueFeature) || (feature instanceof CategoricalFeature)){
+				result.add(null);
+
+				continue;
+			}
+
+			ContinuousFeature continuousFeature = feature.toContinuousFeature();
+
+			Discretize discretize = new Discretize(continuousFeature.getName())
+				.setDataType(DataType.INTEGER);
+
+			for(int j = 0; j <= thresholds.size(); j++){
+				Number leftMargin = (j > 0 ? thresholds.get(j - 1) : null);
+				Number rightMargin = (j < thresholds.size() ? thresholds.get(j) : null);
+
+				Interval interval = new Interval(Interval.Closure.OPEN_CLOSED)
+					.setLeftMargin(leftMargin)
+					.setRightMargin(rightMargin);
+
+				DiscretizeBin discretizeBin = new DiscretizeBin(j, interval);
+
+				discretize.addDiscretizeBins(discretizeBin);
+			}
+
+			DerivedField derivedField = encoder.createDerivedField(FieldNameUtil.create("bin_index", continuousFeature.getName()), OpType.CONTINUOUS, DataType.INTEGER, discretize);
+
+			result.add(new ContinuousFeature(encoder, derivedField));
+		}
+
+		return result;
+	}
+
+	static
+	private MiningModel encodeMiningModel(List<TreeModel> treeModels, Number baselinePrediction, Schema schema){
+		ContinuousLabel continuousLabel = (ContinuousLabel)schema.getLabel();
+
 		MiningModel miningModel = new MiningModel(MiningFunction.REGRESSION, ModelUtil.createMiningSchema(continuousLabel))
 			.setSegmentation(MiningModelUtil.createSegmentation(Segmentation.MultipleModelMethod.SUM, Segmentation.MissingPredictionTreatment.RETURN_MISSING, treeModels))
 			.setTargets(ModelUtil.createRescaleTargets(null, baselinePrediction, continuousLabel));
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2023 Villu Ruusmann
+ *
+ * This file is part of JPMML-SkLearn
+ *
+ * JPMML-SkLearn is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-SkLearn is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-SkLearn.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package sklearn.ensemble.hist_gradient_boosting;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.jpmml.sklearn.PrimitiveArrayUtil;
+
+/**
+ * <p>
+ * A struct-of-arrays representation of a tree predictor.
+ * </p>
+ *
+ * The node fields are decoded in a single pass over the records of the structured Numpy array.
+ */
+public class TreePredictorArrays {
+
+	private int[] leaf = null;
+
+	private int[] leftChildren = null;
+
+	private int[] rightChildren = null;
+
+	private int[] featureIdx = null;
+
+	private int[] isCategorical = null;
+
+	private double[] thresholds = null;
+
+	private int[] bitsetIdx = null;
+
+	private int[] missingGoToLeft = null;
+
+	private double[] values = null;
+
+	private int[] binThresholds = null;
+
+	private int[] rawLeftCatBitsets = null;
+
+
+	public TreePredictorArrays(TreePredictor treePredictor){
+		List<Object> arrays = PrimitiveArrayUtil.getFieldArrays(treePredictor, "nodes", KEYS, TYPES);
+
+		this.leaf = (int[])arrays.get(0);
+		this.leftChildren = (int[])arrays.get(1);
+		this.rightChildren = (int[])arrays.get(2);
+		this.featureIdx = (int[])arrays.get(3);
+		this.isCategorical = (int[])arrays.get(4);
+
+		// SkLearn 0.23
+		if(arrays.get(5) != null){
+			this.thresholds = (double[])arrays.get(5);
+		} else
+
+		// SkLearn 0.24+
+		{
+			this.thresholds = (double[])arrays.get(6);
+		}
+
+		this.bitsetIdx = (int[])arrays.get(7);
+		this.missingGoToLeft = (int[])arrays.get(8);
+		this.values = (double[])arrays.get(9);
+		this.binThresholds = (int[])arrays.get(10);
+		this.rawLeftCatBitsets = treePredictor.getRawLeftCatBitsets();
+	}
+
+	public int size(){
+		return this.leaf.length;
+	}
+
+	public boolean isLeaf(int index){
+		return this.leaf[index] == 1;
+	}
+
+	public boolean isSplit(int index){
+		return this.leaf[index] == 0;
+	}
+
+	public int getLeft(int index){
+		return this.leftChildren[index];
+	}
+
+	public int getRight(int index){
+		return this.rightChildren[index];
+	}
+
+	public int getFeatureIdx(int index){
+		return this.featureIdx[index];
+	}
+
+	public boolean isCategorical(int index){
+		return (this.isCategorical != null) && (this.isCategorical[index] == 1);
+	}
+
+	public double getThreshold(int index){
+		return this.thresholds[index];
+	}
+
+	public int getBitsetIdx(int index){
+		return this.bitsetIdx[index];
+	}
+
+	public boolean getMissingGoToLeft(int index){
+		return this.missingGoToLeft[index] == 1;
+	}
+
+	public double getValue(int index){
+		return this.values[index];
+	}
+
+	public int getBinThreshold(int index){
+		return this.binThresholds[index];
+	}
+
+	public int[] getRawLeftCatBitsets(){
+		return this.rawLeftCatBitsets;
+	}
+
+	private static final List<String> KEYS = Arrays.asList("is_leaf", "left", "right", "feature_idx", "is_categorical", "threshold", "num_threshold", "bitset_idx", "missing_go_to_left", "value", "bin_threshold");
+	private static final List<Class<?>> TYPES = Arrays.asList(int[].class, int[].class, int[].class, int[].class, int[].class, double[].class, double[].class, int[].class, int[].class, double[].class, int[].class);
+}
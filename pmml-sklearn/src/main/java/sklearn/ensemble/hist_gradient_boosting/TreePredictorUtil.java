@@ -18,7 +18,9 @@
  */
 package sklearn.ensemble.hist_gradient_boosting;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
 
 import org.dmg.pmml.DataType;
@@ -55,18 +57,24 @@ public class TreePredictorUtil {
 
 	static
 	public TreeModel encodeTreeModel(TreePredictor treePredictor, BinMapper binMapper, PredicateManager predicateManager, Schema schema){
-		int[] leaf = treePredictor.isLeaf();
-		int[] leftChildren = treePredictor.getLeft();
-		int[] rightChildren = treePredictor.getRight();
-		int[] featureIdx = treePredictor.getFeatureIdx();
-		int[] isCategorical = treePredictor.isCategorical();
-		double[] thresholds = treePredictor.getThreshold();
-		int[] bitsetIdx = treePredictor.getBitsetIdx();
-		int[] missingGoToLeft = treePredictor.getMissingGoToLeft();
-		double[] values = treePredictor.getValues();
-		int[] rawLeftCatBitsets = treePredictor.getRawLeftCatBitsets();
-
-		Node root = encodeNode(0, True.INSTANCE, leaf, leftChildren, rightChildren, featureIdx, isCategorical, thresholds, bitsetIdx, missingGoToLeft, values, binMapper, rawLeftCatBitsets, new CategoryManager(), predicateManager, schema);
+		TreePredictorArrays treePredictorArrays = new TreePredictorArrays(treePredictor);
+
+		return encodeTreeModel(treePredictorArrays, binMapper, predicateManager, schema);
+	}
+
+	static
+	public TreeModel encodeTreeModel(TreePredictorArrays treePredictorArrays, BinMapper binMapper, PredicateManager predicateManager, Schema schema){
+		return encodeTreeModel(treePredictorArrays, binMapper, null, predicateManager, schema);
+	}
+
+	/**
+	 * @param binFeatures Bin index features, or <code>null</code>.
+	 *
+	 * @see HistGradientBoostingUtil#encodeBinFeatures(BinMapper, Schema)
+	 */
+	static
+	public TreeModel encodeTreeModel(TreePredictorArrays treePredictorArrays, BinMapper binMapper, List<? extends Feature> binFeatures, PredicateManager predicateManager, Schema schema){
+		Node root = encodeNodes(treePredictorArrays, binMapper, binFeatures, predicateManager, schema);
 
 		TreeModel treeModel = new TreeModel(MiningFunction.REGRESSION, ModelUtil.createMiningSchema(schema.getLabel()), root)
 			.setSplitCharacteristic(TreeModel.SplitCharacteristic.BINARY_SPLIT)
@@ -75,12 +83,81 @@ public class TreePredictorUtil {
 		return treeModel;
 	}
 
+	/**
+	 * <p>
+	 * Performs all encoder interactions of {@link #encodeTreeModel(TreePredictorArrays, BinMapper, List, PredicateManager, Schema)}.
+	 * </p>
+	 */
+	static
+	public void encodeSplitFeatures(TreePredictorArrays treePredictorArrays, List<? extends Feature> binFeatures, Schema schema){
+		// Depth-first, left-to-right traversal (the same as the encoding traversal)
+		Deque<Integer> indices = new ArrayDeque<>();
+		indices.push(0);
+
+		while(!indices.isEmpty()){
+			int index = indices.pop();
+
+			if(!treePredictorArrays.isSplit(index)){
+				continue;
+			} // End if
+
+			if(!treePredictorArrays.isCategorical(index)){
+				int featureIdx = treePredictorArrays.getFeatureIdx(index);
+
+				Feature feature = schema.getFeature(featureIdx);
+
+				if((feature instanceof BinaryFeature) || (feature instanceof MissingValueFeature) || (binFeatures != null && binFeatures.get(featureIdx) != null)){
+					// Ignored
+				} else
+
+				{
+					feature.toContinuousFeature(DataType.DOUBLE);
+				}
+			}
+
+			indices.push(treePredictorArrays.getRight(index));
+			indices.push(treePredictorArrays.getLeft(index));
+		}
+	}
+
 	static
-	private Node encodeNode(int index, Predicate predicate, int[] leaf, int[] leftChildren, int[] rightChildren, int[] featureIdx, int[] isCategorical, double[] thresholds, int[] bitsetIdx, int[] missingGoToLeft, double[] values, BinMapper binMapper, int[] rawLeftCatBitsets, CategoryManager categoryManager, PredicateManager predicateManager, Schema schema){
+	private Node encodeNodes(TreePredictorArrays treePredictorArrays, BinMapper binMapper, List<? extends Feature> binFeatures, PredicateManager predicateManager, Schema schema){
+		Node root = null;
+
+		// Depth-first, left-to-right traversal (the same as the original recursive traversal)
+		Deque<NodeTask> tasks = new ArrayDeque<>();
+		tasks.push(new NodeTask(null, 0, True.INSTANCE, new CategoryManager()));
+
+		while(!tasks.isEmpty()){
+			NodeTask task = tasks.pop();
+
+			Node node = encodeNode(task, tasks, treePredictorArrays, binMapper, binFeatures, predicateManager, schema);
+
+			Node parent = task.getParent();
+			if(parent != null){
+				parent.addNodes(node);
+			} else
+
+			{
+				root = node;
+			}
+		}
+
+		return root;
+	}
+
+	static
+	private Node encodeNode(NodeTask task, Deque<NodeTask> tasks, TreePredictorArrays treePredictorArrays, BinMapper binMapper, List<? extends Feature> binFeatures, PredicateManager predicateManager, Schema schema){
+		int index = task.getIndex();
+		Predicate predicate = task.getPredicate();
+		CategoryManager categoryManager = task.getCategoryManager();
+
 		Integer id = Integer.valueOf(index);
 
-		if(leaf[index] == 0){
-			Feature feature = schema.getFeature(featureIdx[index]);
+		if(treePredictorArrays.isSplit(index)){
+			int featureIdx = treePredictorArrays.getFeatureIdx(index);
+
+			Feature feature = schema.getFeature(featureIdx);
 
 			CategoryManager leftCategoryManager = categoryManager;
 			CategoryManager rightCategoryManager = categoryManager;
@@ -88,9 +165,9 @@ public class TreePredictorUtil {
 			Predicate leftPredicate;
 			Predicate rightPredicate;
 
-			boolean defaultLeft = (missingGoToLeft[index] == 1);
+			boolean defaultLeft = treePredictorArrays.getMissingGoToLeft(index);
 
-			boolean categorical = ((isCategorical != null) && (isCategorical[index] == 1));
+			boolean categorical = treePredictorArrays.isCategorical(index);
 			if(categorical){
 
 				if(feature instanceof CategoricalFeature){
@@ -100,10 +177,10 @@ public class TreePredictorUtil {
 
 					java.util.function.Predicate<Object> valueFilter = categoryManager.getValueFilter(name);
 
-					int row = bitsetIdx[index];
+					int row = treePredictorArrays.getBitsetIdx(index);
 
 					// XXX
-					int rawLeftCatBitset = rawLeftCatBitsets[row * 8];
+					int rawLeftCatBitset = (treePredictorArrays.getRawLeftCatBitsets())[row * 8];
 
 					List<Object> leftValues = new ArrayList<>();
 					List<Object> rightValues = new ArrayList<>();
@@ -150,7 +227,7 @@ public class TreePredictorUtil {
 			} else
 
 			{
-				double threshold = thresholds[index];
+				double threshold = treePredictorArrays.getThreshold(index);
 
 				if(feature instanceof BinaryFeature){
 					BinaryFeature binaryFeature = (BinaryFeature)feature;
@@ -179,6 +256,26 @@ public class TreePredictorUtil {
 					rightPredicate = predicateManager.createSimplePredicate(missingValueFeature, SimplePredicate.Operator.IS_MISSING, null);
 				} else
 
+				if(binFeatures != null && binFeatures.get(featureIdx) != null){
+					ContinuousFeature continuousFeature = (binFeatures.get(featureIdx)).toContinuousFeature();
+
+					List<Number> binThresholds = (binMapper.getBinThresholds()).get(featureIdx);
+
+					int binThreshold = treePredictorArrays.getBinThreshold(index);
+
+					// A split on the last non-missing bin sends all non-missing values to the left
+					double binThresholdValue = (binThreshold < binThresholds.size() ? (binThresholds.get(binThreshold)).doubleValue() : Double.POSITIVE_INFINITY);
+
+					if(binThresholdValue != threshold){
+						throw new IllegalArgumentException("Numeric threshold " + threshold + " does not match bin threshold " + binThreshold);
+					}
+
+					Integer value = binThreshold;
+
+					leftPredicate = predicateManager.createSimplePredicate(continuousFeature, SimplePredicate.Operator.LESS_OR_EQUAL, value);
+					rightPredicate = predicateManager.createSimplePredicate(continuousFeature, SimplePredicate.Operator.GREATER_THAN, value);
+				} else
+
 				{
 					ContinuousFeature continuousFeature = feature.toContinuousFeature(DataType.DOUBLE);
 
@@ -189,19 +286,22 @@ public class TreePredictorUtil {
 				}
 			}
 
-			Node leftChild = encodeNode(leftChildren[index], leftPredicate, leaf, leftChildren, rightChildren, featureIdx, isCategorical, thresholds, bitsetIdx, missingGoToLeft, values, binMapper, rawLeftCatBitsets, leftCategoryManager, predicateManager, schema);
-			Node rightChild = encodeNode(rightChildren[index], rightPredicate, leaf, leftChildren, rightChildren, featureIdx, isCategorical, thresholds, bitsetIdx, missingGoToLeft, values, binMapper, rawLeftCatBitsets, rightCategoryManager, predicateManager, schema);
+			int leftIndex = treePredictorArrays.getLeft(index);
+			int rightIndex = treePredictorArrays.getRight(index);
 
 			Node result = new BranchNode(null, predicate)
 				.setId(id)
-				.setDefaultChild(defaultLeft ? leftChild.getId() : rightChild.getId())
-				.addNodes(leftChild, rightChild);
+				.setDefaultChild(Integer.valueOf(defaultLeft ? leftIndex : rightIndex));
+
+			// The left child must be popped (and appended to the result node) first
+			tasks.push(new NodeTask(result, rightIndex, rightPredicate, rightCategoryManager));
+			tasks.push(new NodeTask(result, leftIndex, leftPredicate, leftCategoryManager));
 
 			return result;
 		} else
 
-		if(leaf[index] == 1){
-			Node result = new LeafNode(values[index], predicate)
+		if(treePredictorArrays.isLeaf(index)){
+			Node result = new LeafNode(treePredictorArrays.getValue(index), predicate)
 				.setId(id);
 
 			return result;
@@ -211,4 +311,56 @@ public class TreePredictorUtil {
 			throw new IllegalArgumentException();
 		}
 	}
+
+	static
+	private class NodeTask {
+
+		private Node parent = null;
+
+		private int index;
+
+		private Predicate predicate = null;
+
+		private CategoryManager categoryManager = null;
+
+
+		private NodeTask(Node parent, int index, Predicate predicate, CategoryManager categoryManager){
+			setParent(parent);
+			setIndex(index);
+			setPredicate(predicate);
+			setCategoryManager(categoryManager);
+		}
+
+		public Node getParent(){
+			return this.parent;
+		}
+
+		private void setParent(Node parent){
+			this.parent = parent;
+		}
+
+		public int getIndex(){
+			return this.index;
+		}
+
+		private void setIndex(int index){
+			this.index = index;
+		}
+
+		public Predicate getPredicate(){
+			return this.predicate;
+		}
+
+		private void setPredicate(Predicate predicate){
+			this.predicate = predicate;
+		}
+
+		public CategoryManager getCategoryManager(){
+			return this.categoryManager;
+		}
+
+		private void setCategoryManager(CategoryManager categoryManager){
+			this.categoryManager = categoryManager;
+		}
+	}
 }
\ No newline at end of file
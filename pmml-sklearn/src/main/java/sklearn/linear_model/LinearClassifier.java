@@ -25,15 +25,16 @@ import org.dmg.pmml.DataType;
 import org.dmg.pmml.Model;
 import org.dmg.pmml.OpType;
 import org.dmg.pmml.regression.RegressionModel;
-import org.jpmml.converter.CMatrixUtil;
 import org.jpmml.converter.CategoricalLabel;
 import org.jpmml.converter.Feature;
 import org.jpmml.converter.FieldNameUtil;
+import org.jpmml.converter.Matrix;
 import org.jpmml.converter.ModelUtil;
 import org.jpmml.converter.Schema;
 import org.jpmml.converter.SchemaUtil;
 import org.jpmml.converter.mining.MiningModelUtil;
 import org.jpmml.converter.regression.RegressionModelUtil;
+import org.jpmml.sklearn.PrimitiveArrayUtil;
 import sklearn.Classifier;
 import sklearn.Estimator;
 
@@ -55,11 +56,10 @@ public class LinearClassifier extends Classifier {
 		int[] shape = getCoefShape();
 
 		int numberOfClasses = shape[0];
-		int numberOfFeatures = shape[1];
 
 		boolean hasProbabilityDistribution = hasProbabilityDistribution();
 
-		List<? extends Number> coef = getCoef();
+		Matrix<? extends Number> coef = getCoefMatrix();
 		List<? extends Number> intercept = getIntercept();
 
 		CategoricalLabel categoricalLabel = (CategoricalLabel)schema.getLabel();
@@ -68,7 +68,7 @@ public class LinearClassifier extends Classifier {
 		if(numberOfClasses == 1){
 			SchemaUtil.checkSize(2, categoricalLabel);
 
-			return RegressionModelUtil.createBinaryLogisticClassification(features, CMatrixUtil.getRow(coef, numberOfClasses, numberOfFeatures, 0), intercept.get(0), RegressionModel.NormalizationMethod.LOGIT, hasProbabilityDistribution, schema);
+			return RegressionModelUtil.createBinaryLogisticClassification(features, coef.getRowValues(0), intercept.get(0), RegressionModel.NormalizationMethod.LOGIT, hasProbabilityDistribution, schema);
 		} else
 
 		if(numberOfClasses >= 3){
@@ -79,7 +79,7 @@ public class LinearClassifier extends Classifier {
 			List<RegressionModel> regressionModels = new ArrayList<>();
 
 			for(int i = 0, rows = categoricalLabel.size(); i < rows; i++){
-				RegressionModel regressionModel = RegressionModelUtil.createRegression(features, CMatrixUtil.getRow(coef, numberOfClasses, numberOfFeatures, i), intercept.get(i), RegressionModel.NormalizationMethod.LOGIT, segmentSchema)
+				RegressionModel regressionModel = RegressionModelUtil.createRegression(features, coef.getRowValues(i), intercept.get(i), RegressionModel.NormalizationMethod.LOGIT, segmentSchema)
 					.setOutput(ModelUtil.createPredictedOutput(FieldNameUtil.create(Estimator.FIELD_DECISION_FUNCTION, categoricalLabel.getValue(i)), OpType.CONTINUOUS, DataType.DOUBLE));
 
 				regressionModels.add(regressionModel);
@@ -97,6 +97,10 @@ public class LinearClassifier extends Classifier {
 		return getNumberArray("coef_");
 	}
 
+	public Matrix<? extends Number> getCoefMatrix(){
+		return PrimitiveArrayUtil.getNumberMatrix(this, "coef_");
+	}
+
 	public int[] getCoefShape(){
 		return getArrayShape("coef_", 2);
 	}
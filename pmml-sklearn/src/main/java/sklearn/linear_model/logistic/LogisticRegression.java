@@ -30,10 +30,10 @@ import org.dmg.pmml.OpType;
 import org.dmg.pmml.mining.Segmentation;
 import org.dmg.pmml.regression.RegressionModel;
 import org.dmg.pmml.regression.RegressionTable;
-import org.jpmml.converter.CMatrixUtil;
 import org.jpmml.converter.CategoricalLabel;
 import org.jpmml.converter.ContinuousFeature;
 import org.jpmml.converter.Feature;
+import org.jpmml.converter.Matrix;
 import org.jpmml.converter.ModelUtil;
 import org.jpmml.converter.PMMLEncoder;
 import org.jpmml.converter.Schema;
@@ -88,9 +88,8 @@ public class LogisticRegression extends LinearClassifier {
 		int[] shape = getCoefShape();
 
 		int numberOfClasses = shape[0];
-		int numberOfFeatures = shape[1];
 
-		List<? extends Number> coef = getCoef();
+		Matrix<? extends Number> coef = getCoefMatrix();
 		List<? extends Number> intercept = getIntercept();
 
 		PMMLEncoder encoder = schema.getEncoder();
@@ -109,7 +108,7 @@ public class LogisticRegression extends LinearClassifier {
 
 			Schema segmentSchema = schema.toRelabeledSchema(null);
 
-			RegressionModel firstRegressionModel = RegressionModelUtil.createRegression(features, CMatrixUtil.getRow(coef, 1, numberOfFeatures, 0), intercept.get(0), null, segmentSchema)
+			RegressionModel firstRegressionModel = RegressionModelUtil.createRegression(features, coef.getRowValues(0), intercept.get(0), null, segmentSchema)
 				.setOutput(ModelUtil.createPredictedOutput(Estimator.FIELD_DECISION_FUNCTION, OpType.CONTINUOUS, DataType.DOUBLE));
 
 			Feature feature = new ContinuousFeature(encoder, Estimator.FIELD_DECISION_FUNCTION, DataType.DOUBLE);
@@ -137,7 +136,7 @@ public class LogisticRegression extends LinearClassifier {
 			List<RegressionTable> regressionTables = new ArrayList<>();
 
 			for(int i = 0; i < categoricalLabel.size(); i++){
-				RegressionTable regressionTable = RegressionModelUtil.createRegressionTable(features, CMatrixUtil.getRow(coef, numberOfClasses, numberOfFeatures, i), intercept.get(i))
+				RegressionTable regressionTable = RegressionModelUtil.createRegressionTable(features, coef.getRowValues(i), intercept.get(i))
 					.setTargetCategory(categoricalLabel.getValue(i));
 
 				regressionTables.add(regressionTable);
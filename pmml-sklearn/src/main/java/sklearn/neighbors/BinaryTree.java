@@ -23,6 +23,7 @@ import java.util.Arrays;
 import java.util.List;
 
 import org.jpmml.python.CustomPythonObject;
+import org.jpmml.sklearn.PrimitiveArrayUtil;
 
 public class BinaryTree extends CustomPythonObject {
 
@@ -49,6 +50,64 @@ public class BinaryTree extends CustomPythonObject {
 		}
 	}
 
+	public int getLeafSize(){
+		return getInteger("leaf_size");
+	}
+
+	public int getNumberOfNodes(){
+		return getInteger("n_nodes");
+	}
+
+	/**
+	 * <p>
+	 * The permutation of training data rows, which makes the rows of every node contiguous.
+	 * </p>
+	 */
+	public int[] getIdxArray(){
+		return PrimitiveArrayUtil.getIntArray(this, "idx_array_arr");
+	}
+
+	public int[] getIdxStart(){
+		return getNodeData("idx_start");
+	}
+
+	public int[] getIdxEnd(){
+		return getNodeData("idx_end");
+	}
+
+	public int[] getIsLeaf(){
+		return getNodeData("is_leaf");
+	}
+
+	public double[] getRadius(){
+		return PrimitiveArrayUtil.getDoubleArray(this, "node_data_arr", "radius");
+	}
+
+	/**
+	 * <p>
+	 * Node bounds in row-major order.
+	 * KD trees store lower and upper bounds (shape <code>(2, n_nodes, n_features)</code>),
+	 * whereas Ball trees store centroids (shape <code>(1, n_nodes, n_features)</code>).
+	 * </p>
+	 */
+	public double[] getNodeBounds(){
+		return PrimitiveArrayUtil.getDoubleArray(this, "node_bounds_arr");
+	}
+
+	public int[] getNodeBoundsShape(){
+		return getArrayShape("node_bounds_arr", 3);
+	}
+
+	private int[] getNodeData(String key){
+		int[] result = PrimitiveArrayUtil.getIntArray(this, "node_data_arr", key);
+
+		if(result == null){
+			throw new IllegalArgumentException(key);
+		}
+
+		return result;
+	}
+
 	private static final String[] INIT_ATTRIBUTES = {
 		"data"
 	};
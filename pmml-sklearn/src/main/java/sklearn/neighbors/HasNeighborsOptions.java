@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2023 Villu Ruusmann
+ *
+ * This file is part of JPMML-SkLearn
+ *
+ * JPMML-SkLearn is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-SkLearn is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-SkLearn.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package sklearn.neighbors;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.dmg.pmml.TableLocator;
+import org.dmg.pmml.nearest_neighbor.TrainingInstances;
+import org.jpmml.sklearn.HasSkLearnOptions;
+import org.jpmml.sklearn.InlineTableUtil;
+import org.jpmml.sklearn.TableLocatorUtil;
+
+public interface HasNeighborsOptions extends HasSkLearnOptions {
+
+	/**
+	 * <p>
+	 * If <code>true</code>, then the KD tree or Ball tree index (if any) is exported as a {@link TrainingInstances} extension.
+	 * </p>
+	 *
+	 * @see BinaryTree
+	 */
+	String OPTION_BINARY_TREE = "binary_tree";
+
+	/**
+	 * <p>
+	 * If <code>true</code>, then the cells of {@link TrainingInstances} are created only when the PMML document is being marshalled.
+	 * </p>
+	 *
+	 * @see InlineTableUtil#createInlineTable(java.util.Map, boolean, boolean)
+	 */
+	String OPTION_LAZY_CELLS = "lazy_cells";
+
+	/**
+	 * @see ForkJoinPool#commonPool()
+	 */
+	String OPTION_PARALLEL = "parallel";
+
+	/**
+	 * <p>
+	 * The path of a CSV file, relative to the table directory.
+	 * If set, then {@link TrainingInstances} are written into this file, and referenced using a {@link TableLocator} element.
+	 * </p>
+	 *
+	 * @see TableLocatorUtil#createTableLocator(java.util.Map, String)
+	 * @see TableLocatorUtil#setDirectory(java.io.File)
+	 */
+	String OPTION_TRAINING_INSTANCES_FILE = "training_instances_file";
+}
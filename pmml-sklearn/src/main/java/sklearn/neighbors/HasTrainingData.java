@@ -20,12 +20,31 @@ package sklearn.neighbors;
 
 import java.util.List;
 
+import org.jpmml.converter.CMatrix;
+import org.jpmml.converter.Matrix;
+
 public interface HasTrainingData {
 
 	List<? extends Number> getFitX();
 
 	int[] getFitXShape();
 
+	/**
+	 * @return The training data as a row-major matrix.
+	 */
+	default
+	Matrix<? extends Number> getFitXMatrix(){
+		List<? extends Number> fitX = getFitX();
+		int[] shape = getFitXShape();
+
+		return new CMatrix<>(fitX, shape[0], shape[1]);
+	}
+
+	/**
+	 * @return The KD tree or Ball tree index, or <code>null</code> if the training data is searched using brute force.
+	 */
+	BinaryTree getTree();
+
 	List<?> getId();
 
 	List<? extends Number> getY();
@@ -23,10 +23,12 @@ import java.util.List;
 import org.dmg.pmml.DataType;
 import org.dmg.pmml.MiningFunction;
 import org.dmg.pmml.nearest_neighbor.NearestNeighborModel;
+import org.jpmml.converter.Matrix;
 import org.jpmml.converter.Schema;
+import org.jpmml.sklearn.PrimitiveArrayUtil;
 import sklearn.Classifier;
 
-public class KNeighborsClassifier extends Classifier implements HasMetric, HasNumberOfNeighbors, HasTrainingData {
+public class KNeighborsClassifier extends Classifier implements HasMetric, HasNeighborsOptions, HasNumberOfNeighbors, HasTrainingData {
 
 	public KNeighborsClassifier(String module, String name){
 		super(module, name);
@@ -102,11 +104,21 @@ public class KNeighborsClassifier extends Classifier implements HasMetric, HasNu
 		return getNumberArray("_fit_X");
 	}
 
+	@Override
+	public Matrix<? extends Number> getFitXMatrix(){
+		return PrimitiveArrayUtil.getNumberMatrix(this, "_fit_X");
+	}
+
 	@Override
 	public int[] getFitXShape(){
 		return getArrayShape("_fit_X", 2);
 	}
 
+	@Override
+	public BinaryTree getTree(){
+		return getOptional("_tree", BinaryTree.class);
+	}
+
 	@Override
 	public List<?> getId(){
 
@@ -18,22 +18,28 @@
  */
 package sklearn.neighbors;
 
+import java.io.IOException;
+import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 import com.google.common.base.Function;
 import com.google.common.collect.Lists;
+import com.google.common.primitives.Doubles;
+import com.google.common.primitives.Ints;
 import org.dmg.pmml.CityBlock;
 import org.dmg.pmml.CompareFunction;
 import org.dmg.pmml.ComparisonMeasure;
 import org.dmg.pmml.DataType;
 import org.dmg.pmml.Euclidean;
+import org.dmg.pmml.Extension;
 import org.dmg.pmml.Measure;
 import org.dmg.pmml.MiningFunction;
 import org.dmg.pmml.Minkowski;
 import org.dmg.pmml.Output;
 import org.dmg.pmml.OutputField;
+import org.dmg.pmml.TableLocator;
 import org.dmg.pmml.nearest_neighbor.InstanceField;
 import org.dmg.pmml.nearest_neighbor.InstanceFields;
 import org.dmg.pmml.nearest_neighbor.KNNInput;
@@ -46,6 +52,7 @@ import org.jpmml.converter.ContinuousFeature;
 import org.jpmml.converter.ContinuousLabel;
 import org.jpmml.converter.Feature;
 import org.jpmml.converter.Label;
+import org.jpmml.converter.Matrix;
 import org.jpmml.converter.ModelUtil;
 import org.jpmml.converter.MultiLabel;
 import org.jpmml.converter.PMMLUtil;
@@ -53,6 +60,8 @@ import org.jpmml.converter.ScalarLabel;
 import org.jpmml.converter.Schema;
 import org.jpmml.converter.ValueUtil;
 import org.jpmml.python.ClassDictUtil;
+import org.jpmml.sklearn.InlineTableUtil;
+import org.jpmml.sklearn.TableLocatorUtil;
 import sklearn.Estimator;
 
 public class KNeighborsUtil {
@@ -84,7 +93,7 @@ public class KNeighborsUtil {
 		int numberOfNeighbors = estimator.getNumberOfNeighbors();
 		int numberOfOutputs = estimator.getNumberOfOutputs();
 
-		List<? extends Number> fitX = estimator.getFitX();
+		Matrix<? extends Number> fitX = estimator.getFitXMatrix();
 		List<?> id = estimator.getId();
 		List<? extends Number> y = estimator.getY();
 
@@ -175,12 +184,22 @@ public class KNeighborsUtil {
 
 			knnInputs.addKNNInputs(knnInput);
 
-			data.put(instanceField.getColumn(), CMatrixUtil.getColumn(fitX, numberOfInstances, numberOfFeatures, i));
+			data.put(instanceField.getColumn(), fitX.getColumnValues(i));
 		}
 
-		TrainingInstances trainingInstances = new TrainingInstances(instanceFields, PMMLUtil.createInlineTable(data))
+		TrainingInstances trainingInstances = encodeTrainingInstances(estimator, numberOfInstances, instanceFields, data)
 			.setTransformed(true);
 
+		Boolean binaryTree = (Boolean)estimator.getOption(HasNeighborsOptions.OPTION_BINARY_TREE, Boolean.FALSE);
+
+		if(binaryTree){
+			BinaryTree tree = estimator.getTree();
+
+			if(tree != null){
+				trainingInstances.addExtensions(encodeBinaryTree(tree, numberOfInstances, numberOfFeatures));
+			}
+		}
+
 		ComparisonMeasure comparisonMeasure = encodeComparisonMeasure(estimator);
 
 		Output output;
@@ -209,6 +228,117 @@ public class KNeighborsUtil {
 		return nearestNeighborModel;
 	}
 
+	static
+	private TrainingInstances encodeTrainingInstances(Estimator estimator, int numberOfInstances, InstanceFields instanceFields, Map<String, List<?>> data){
+		String trainingInstancesFile = (String)estimator.getOption(HasNeighborsOptions.OPTION_TRAINING_INSTANCES_FILE, null);
+
+		if(trainingInstancesFile != null){
+			TableLocator tableLocator;
+
+			try {
+				tableLocator = TableLocatorUtil.createTableLocator(data, trainingInstancesFile);
+			} catch(IOException ioe){
+				throw new IllegalArgumentException(trainingInstancesFile, ioe);
+			}
+
+			TrainingInstances trainingInstances = new TrainingInstances()
+				.setRecordCount(numberOfInstances)
+				.setFieldCount(data.size())
+				.setInstanceFields(instanceFields)
+				.setTableLocator(tableLocator);
+
+			return trainingInstances;
+		}
+
+		Boolean parallel = (Boolean)estimator.getOption(HasNeighborsOptions.OPTION_PARALLEL, Boolean.FALSE);
+		Boolean lazyCells = (Boolean)estimator.getOption(HasNeighborsOptions.OPTION_LAZY_CELLS, Boolean.FALSE);
+
+		TrainingInstances trainingInstances = new TrainingInstances(instanceFields, InlineTableUtil.createInlineTable(data, parallel, lazyCells));
+
+		return trainingInstances;
+	}
+
+	/**
+	 * <p>
+	 * Encodes a KD tree or Ball tree index.
+	 * </p>
+	 *
+	 * The node table is ordered by node index, where the children of node <code>i</code> are nodes <code>2 * i + 1</code> and <code>2 * i + 2</code>.
+	 * A node holds training instances <code>idx_array[idx_start]</code> to <code>idx_array[idx_end - 1]</code>.
+	 */
+	static
+	private Extension encodeBinaryTree(BinaryTree tree, int numberOfInstances, int numberOfFeatures){
+		int numberOfNodes = tree.getNumberOfNodes();
+
+		int[] idxArray = tree.getIdxArray();
+		int[] idxStart = tree.getIdxStart();
+		int[] idxEnd = tree.getIdxEnd();
+		int[] isLeaf = tree.getIsLeaf();
+		double[] radius = tree.getRadius();
+
+		double[] nodeBounds = tree.getNodeBounds();
+		int[] nodeBoundsShape = tree.getNodeBoundsShape();
+
+		if(idxArray.length != numberOfInstances){
+			throw new IllegalArgumentException();
+		} // End if
+
+		if(nodeBoundsShape[1] != numberOfNodes || nodeBoundsShape[2] != numberOfFeatures){
+			throw new IllegalArgumentException();
+		}
+
+		String type;
+		List<String> boundNames;
+
+		switch(nodeBoundsShape[0]){
+			case 1:
+				type = "ball_tree";
+				boundNames = Arrays.asList("centroid");
+				break;
+			case 2:
+				type = "kd_tree";
+				boundNames = Arrays.asList("lower", "upper");
+				break;
+			default:
+				throw new IllegalArgumentException();
+		}
+
+		Map<String, List<?>> data = new LinkedHashMap<>();
+		data.put("data:idx_start", Ints.asList(idxStart));
+		data.put("data:idx_end", Ints.asList(idxEnd));
+		data.put("data:is_leaf", Ints.asList(isLeaf));
+		data.put("data:radius", Doubles.asList(radius));
+
+		for(int i = 0; i < boundNames.size(); i++){
+			String boundName = boundNames.get(i);
+
+			for(int j = 0; j < numberOfFeatures; j++){
+				double[] bounds = new double[numberOfNodes];
+
+				for(int node = 0; node < numberOfNodes; node++){
+					bounds[node] = nodeBounds[((i * numberOfNodes) + node) * numberOfFeatures + j];
+				}
+
+				data.put("data:" + boundName + String.valueOf(j + 1), Doubles.asList(bounds));
+			}
+		}
+
+		Extension idxArrayExtension = new Extension()
+			.setName("idx_array")
+			.addContent(PMMLUtil.createIntArray(Ints.asList(idxArray)));
+
+		Extension nodesExtension = new Extension()
+			.setName("nodes")
+			.addContent(PMMLUtil.createInlineTable(data));
+
+		Extension extension = new Extension()
+			.setName(KNeighborsUtil.EXTENSION_BINARY_TREE)
+			.setValue(type)
+			.addContent(PMMLUtil.createExtension("leaf_size", ValueUtil.asString(tree.getLeafSize())), idxArrayExtension, nodesExtension);
+
+		return extension;
+	}
+
 	static
 	private <E extends Estimator & HasMetric> ComparisonMeasure encodeComparisonMeasure(E estimator){
 		Measure measure = encodeMeasure(estimator);
@@ -296,5 +426,7 @@ public class KNeighborsUtil {
 		}
 	}
 
+	public static final String EXTENSION_BINARY_TREE = "binary_tree";
+
 	private static final String VARIABLE_ID = "id";
 }
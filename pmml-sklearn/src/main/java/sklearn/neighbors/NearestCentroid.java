@@ -24,11 +24,13 @@ import org.dmg.pmml.DataType;
 import org.dmg.pmml.MiningFunction;
 import org.dmg.pmml.Model;
 import org.dmg.pmml.nearest_neighbor.NearestNeighborModel;
+import org.jpmml.converter.Matrix;
 import org.jpmml.converter.Schema;
 import org.jpmml.python.SliceUtil;
+import org.jpmml.sklearn.PrimitiveArrayUtil;
 import sklearn.Classifier;
 
-public class NearestCentroid extends Classifier implements HasMetric, HasNumberOfNeighbors, HasTrainingData {
+public class NearestCentroid extends Classifier implements HasMetric, HasNeighborsOptions, HasNumberOfNeighbors, HasTrainingData {
 
 	public NearestCentroid(String module, String name){
 		super(module, name);
@@ -73,6 +75,10 @@ public class NearestCentroid extends Classifier implements HasMetric, HasNumberO
 		return getNumberArray("centroids_");
 	}
 
+	public Matrix<? extends Number> getCentroidsMatrix(){
+		return PrimitiveArrayUtil.getNumberMatrix(this, "centroids_");
+	}
+
 	public int[] getCentroidsShape(){
 		return getArrayShape("centroids_", 2);
 	}
@@ -103,11 +109,21 @@ public class NearestCentroid extends Classifier implements HasMetric, HasNumberO
 		return getCentroids();
 	}
 
+	@Override
+	public Matrix<? extends Number> getFitXMatrix(){
+		return getCentroidsMatrix();
+	}
+
 	@Override
 	public int[] getFitXShape(){
 		return getCentroidsShape();
 	}
 
+	@Override
+	public BinaryTree getTree(){
+		return null;
+	}
+
 	@Override
 	public List<?> getId(){
 		return null;
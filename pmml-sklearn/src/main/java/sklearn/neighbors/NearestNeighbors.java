@@ -23,11 +23,13 @@ import java.util.List;
 import org.dmg.pmml.DataType;
 import org.dmg.pmml.MiningFunction;
 import org.dmg.pmml.nearest_neighbor.NearestNeighborModel;
+import org.jpmml.converter.Matrix;
 import org.jpmml.converter.Schema;
 import org.jpmml.python.SliceUtil;
+import org.jpmml.sklearn.PrimitiveArrayUtil;
 import sklearn.Clusterer;
 
-public class NearestNeighbors extends Clusterer implements HasMetric, HasNumberOfNeighbors, HasTrainingData {
+public class NearestNeighbors extends Clusterer implements HasMetric, HasNeighborsOptions, HasNumberOfNeighbors, HasTrainingData {
 
 	public NearestNeighbors(String module, String name){
 		super(module, name);
@@ -80,11 +82,21 @@ public class NearestNeighbors extends Clusterer implements HasMetric, HasNumberO
 		return getNumberArray("_fit_X");
 	}
 
+	@Override
+	public Matrix<? extends Number> getFitXMatrix(){
+		return PrimitiveArrayUtil.getNumberMatrix(this, "_fit_X");
+	}
+
 	@Override
 	public int[] getFitXShape(){
 		return getArrayShape("_fit_X", 2);
 	}
 
+	@Override
+	public BinaryTree getTree(){
+		return getOptional("_tree", BinaryTree.class);
+	}
+
 	@Override
 	public List<?> getId(){
 
@@ -23,9 +23,10 @@ import java.util.List;
 import org.dmg.pmml.support_vector_machine.Kernel;
 import org.dmg.pmml.support_vector_machine.SupportVectorMachine;
 import org.dmg.pmml.support_vector_machine.SupportVectorMachineModel;
-import org.jpmml.converter.CMatrix;
+import org.jpmml.converter.Matrix;
 import org.jpmml.converter.Schema;
 import org.jpmml.converter.support_vector_machine.LibSVMUtil;
+import org.jpmml.sklearn.PrimitiveArrayUtil;
 import sklearn.Classifier;
 
 public class LibSVMClassifier extends Classifier {
@@ -48,20 +49,15 @@ public class LibSVMClassifier extends Classifier {
 
 	@Override
 	public SupportVectorMachineModel encodeModel(Schema schema){
-		int[] shape = getSupportVectorsShape();
-
-		int numberOfVectors = shape[0];
-		int numberOfFeatures = shape[1];
-
 		List<Integer> support = getSupport();
-		List<? extends Number> supportVectors = getSupportVectors();
+		Matrix<? extends Number> supportVectors = getSupportVectorsMatrix();
 		List<Integer> supportSizes = getSupportSizes();
 		List<? extends Number> dualCoef = getDualCoef();
 		List<? extends Number> intercept = getIntercept();
 
 		Kernel kernel = SupportVectorMachineUtil.createKernel(getKernel(), getDegree(), getGamma(), getCoef0());
 
-		SupportVectorMachineModel supportVectorMachineModel = LibSVMUtil.createClassification(kernel, new CMatrix<>(supportVectors, numberOfVectors, numberOfFeatures), supportSizes, SupportVectorMachineUtil.formatIds(support), intercept, dualCoef, schema);
+		SupportVectorMachineModel supportVectorMachineModel = LibSVMUtil.createClassification(kernel, supportVectors, supportSizes, SupportVectorMachineUtil.formatIds(support), intercept, dualCoef, schema);
 
 		List<SupportVectorMachine> supportVectorMachines = supportVectorMachineModel.getSupportVectorMachines();
 		for(SupportVectorMachine supportVectorMachine : supportVectorMachines){
@@ -101,6 +97,10 @@ public class LibSVMClassifier extends Classifier {
 		return getNumberArray("support_vectors_");
 	}
 
+	public Matrix<? extends Number> getSupportVectorsMatrix(){
+		return PrimitiveArrayUtil.getNumberMatrix(this, "support_vectors_");
+	}
+
 	public int[] getSupportVectorsShape(){
 		return getArrayShape("support_vectors_", 2);
 	}
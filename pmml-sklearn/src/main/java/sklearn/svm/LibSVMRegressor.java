@@ -23,9 +23,10 @@ import java.util.List;
 import com.google.common.collect.Iterables;
 import org.dmg.pmml.support_vector_machine.Kernel;
 import org.dmg.pmml.support_vector_machine.SupportVectorMachineModel;
-import org.jpmml.converter.CMatrix;
+import org.jpmml.converter.Matrix;
 import org.jpmml.converter.Schema;
 import org.jpmml.converter.support_vector_machine.LibSVMUtil;
+import org.jpmml.sklearn.PrimitiveArrayUtil;
 import sklearn.Regressor;
 
 public class LibSVMRegressor extends Regressor {
@@ -43,19 +44,14 @@ public class LibSVMRegressor extends Regressor {
 
 	@Override
 	public SupportVectorMachineModel encodeModel(Schema schema){
-		int[] shape = getSupportVectorsShape();
-
-		int numberOfVectors = shape[0];
-		int numberOfFeatures = shape[1];
-
 		List<Integer> support = getSupport();
-		List<? extends Number> supportVectors = getSupportVectors();
+		Matrix<? extends Number> supportVectors = getSupportVectorsMatrix();
 		List<? extends Number> dualCoef = getDualCoef();
 		List<? extends Number> intercept = getIntercept();
 
 		Kernel kernel = SupportVectorMachineUtil.createKernel(getKernel(), getDegree(), getGamma(), getCoef0());
 
-		return LibSVMUtil.createRegression(kernel, new CMatrix<>(supportVectors, numberOfVectors, numberOfFeatures), SupportVectorMachineUtil.formatIds(support), Iterables.getOnlyElement(intercept), dualCoef, schema);
+		return LibSVMUtil.createRegression(kernel, supportVectors, SupportVectorMachineUtil.formatIds(support), Iterables.getOnlyElement(intercept), dualCoef, schema);
 	}
 
 	public String getKernel(){
@@ -82,6 +78,10 @@ public class LibSVMRegressor extends Regressor {
 		return getNumberArray("support_vectors_");
 	}
 
+	public Matrix<? extends Number> getSupportVectorsMatrix(){
+		return PrimitiveArrayUtil.getNumberMatrix(this, "support_vectors_");
+	}
+
 	public int[] getSupportVectorsShape(){
 		return getArrayShape("support_vectors_", 2);
 	}
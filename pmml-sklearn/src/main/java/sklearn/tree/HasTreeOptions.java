@@ -20,6 +20,7 @@ package sklearn.tree;
 
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 
 import org.dmg.pmml.OutputField;
 import org.dmg.pmml.SimplePredicate;
@@ -28,6 +29,7 @@ import org.dmg.pmml.tree.Node;
 import org.jpmml.converter.HasNativeConfiguration;
 import org.jpmml.sklearn.HasSkLearnOptions;
 import sklearn.tree.visitors.TreeModelCompactor;
+import sklearn.tree.visitors.TreeModelDeduplicator;
 import sklearn.tree.visitors.TreeModelFlattener;
 import sklearn.tree.visitors.TreeModelPruner;
 
@@ -38,11 +40,33 @@ public interface HasTreeOptions extends HasSkLearnOptions, HasNativeConfiguratio
 	 */
 	String OPTION_COMPACT = "compact";
 
+	/**
+	 * @see TreeModelDeduplicator
+	 */
+	String OPTION_DEDUPLICATE = "deduplicate";
+
 	/**
 	 * @see TreeModelFlattener
 	 */
 	String OPTION_FLAT = "flat";
 
+	/**
+	 * <p>
+	 * If <code>true</code>, then the more frequent child of a binary split is emitted first,
+	 * and regression nodes record their (weighted) number of training samples.
+	 * </p>
+	 *
+	 * <p>
+	 * The order of children is kept only if the {@link #OPTION_COMPACT compact} option is not active
+	 * (which is the default only if any of the node id, node score or node extensions options is active).
+	 * Compaction restores the canonical order of binary splits, because the second child becomes the fallback child.
+	 * The recording of training sample counts and the flat and prune options are not affected.
+	 * </p>
+	 *
+	 * @see Node#getRecordCount()
+	 */
+	String OPTION_FREQUENCY_ORDER = "frequency_order";
+
 	/**
 	 * @see Node#hasExtensions()
 	 * @see Node#getExtensions()
@@ -65,6 +89,11 @@ public interface HasTreeOptions extends HasSkLearnOptions, HasNativeConfiguratio
 	 */
 	String OPTION_NUMERIC = "numeric";
 
+	/**
+	 * @see ForkJoinPool#commonPool()
+	 */
+	String OPTION_PARALLEL = "parallel";
+
 	/**
 	 * @see TreeModelPruner
 	 */
@@ -80,7 +109,9 @@ public interface HasTreeOptions extends HasSkLearnOptions, HasNativeConfiguratio
 	public Map<String, ?> getNativeConfiguration(){
 		Map<String, Object> result = new LinkedHashMap<>();
 		result.put(HasTreeOptions.OPTION_COMPACT, Boolean.FALSE);
+		result.put(HasTreeOptions.OPTION_DEDUPLICATE, Boolean.FALSE);
 		result.put(HasTreeOptions.OPTION_FLAT, Boolean.FALSE);
+		result.put(HasTreeOptions.OPTION_FREQUENCY_ORDER, Boolean.FALSE);
 		result.put(HasTreeOptions.OPTION_NODE_ID, Boolean.TRUE);
 		result.put(HasTreeOptions.OPTION_NODE_SCORE, Boolean.TRUE);
 		result.put(HasTreeOptions.OPTION_NUMERIC, Boolean.TRUE);
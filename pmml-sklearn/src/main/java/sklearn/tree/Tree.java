@@ -21,9 +21,8 @@ package sklearn.tree;
 import java.util.Arrays;
 import java.util.List;
 
-import com.google.common.primitives.Doubles;
-import com.google.common.primitives.Ints;
 import org.jpmml.python.CustomPythonObject;
+import org.jpmml.sklearn.PrimitiveArrayUtil;
 
 public class Tree extends CustomPythonObject {
 
@@ -37,31 +36,39 @@ public class Tree extends CustomPythonObject {
 	}
 
 	public double[] getValues(){
-		return Doubles.toArray(getNumberArray("values"));
+		return PrimitiveArrayUtil.getDoubleArray(this, "values");
 	}
 
 	public int[] getChildrenLeft(){
-		return Ints.toArray(getNodeAttribute("left_child"));
+		return getIntNodeAttribute("left_child");
 	}
 
 	public int[] getChildrenRight(){
-		return Ints.toArray(getNodeAttribute("right_child"));
+		return getIntNodeAttribute("right_child");
 	}
 
 	public int[] getFeature(){
-		return Ints.toArray(getNodeAttribute("feature"));
+		return getIntNodeAttribute("feature");
 	}
 
 	public double[] getThreshold(){
-		return Doubles.toArray(getNodeAttribute("threshold"));
+		return getDoubleNodeAttribute("threshold");
 	}
 
 	public int[] getNodeSamples(){
-		return Ints.toArray(getNodeAttribute("n_node_samples"));
+		return getIntNodeAttribute("n_node_samples");
 	}
 
-	private List<? extends Number> getNodeAttribute(String key){
-		return (List)getArray("nodes", key);
+	public double[] getWeightedNodeSamples(){
+		return getDoubleNodeAttribute("weighted_n_node_samples");
+	}
+
+	private int[] getIntNodeAttribute(String key){
+		return PrimitiveArrayUtil.getIntArray(this, "nodes", key);
+	}
+
+	private double[] getDoubleNodeAttribute(String key){
+		return PrimitiveArrayUtil.getDoubleArray(this, "nodes", key);
 	}
 
 	public static final List<String> DTYPE_TREE = Arrays.asList("left_child", "right_child", "feature", "threshold", "impurity", "n_node_samples", "weighted_n_node_samples");
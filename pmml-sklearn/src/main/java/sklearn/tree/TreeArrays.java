@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2023 Villu Ruusmann
+ *
+ * This file is part of JPMML-SkLearn
+ *
+ * JPMML-SkLearn is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-SkLearn is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-SkLearn.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package sklearn.tree;
+
+import org.dmg.pmml.MiningFunction;
+
+/**
+ * <p>
+ * A struct-of-arrays representation of a decision tree,
+ * which can be simplified before any PMML nodes are created.
+ * </p>
+ *
+ * <p>
+ * The arrays are shared with the {@link Tree} object until the first modification.
+ * </p>
+ *
+ * Only the prune pass is implemented on arrays.
+ * The compact and flatten passes still operate on the encoded tree model (see {@link sklearn.tree.visitors.FusedTreeModelTransformer}).
+ */
+public class TreeArrays {
+
+	private int[] leftChildren = null;
+
+	private int[] rightChildren = null;
+
+	private int[] features = null;
+
+	private double[] thresholds = null;
+
+	private double[] values = null;
+
+	private double[] weights = null;
+
+	private boolean shared = true;
+
+
+	public TreeArrays(Tree tree, boolean weighted){
+		this.leftChildren = tree.getChildrenLeft();
+		this.rightChildren = tree.getChildrenRight();
+		this.features = tree.getFeature();
+		this.thresholds = tree.getThreshold();
+		this.values = tree.getValues();
+		this.weights = (weighted ? tree.getWeightedNodeSamples() : null);
+	}
+
+	private TreeArrays(TreeArrays treeArrays){
+		this.leftChildren = treeArrays.leftChildren;
+		this.rightChildren = treeArrays.rightChildren;
+		this.features = treeArrays.features;
+		this.thresholds = treeArrays.thresholds;
+		this.values = treeArrays.values;
+		this.weights = treeArrays.weights;
+	}
+
+	/**
+	 * <p>
+	 * Creates a copy, which shares the arrays with this object until either one of them is modified.
+	 * </p>
+	 */
+	public TreeArrays copy(){
+		TreeArrays result = new TreeArrays(this);
+
+		this.shared = true;
+
+		return result;
+	}
+
+	public int size(){
+		return this.leftChildren.length;
+	}
+
+	public boolean isLeaf(int index){
+		return this.features[index] < 0;
+	}
+
+	/**
+	 * <p>
+	 * Turns every split node whose children have the same score as itself into a leaf node.
+	 * </p>
+	 *
+	 * The result is the same as applying {@link sklearn.tree.visitors.TreeModelPruner} to the encoded tree model.
+	 * Classification trees are left as-is, because their leaf nodes carry ScoreDistributions,
+	 * which the visitor does not merge either.
+	 *
+	 * @return The number of split nodes that were turned into leaf nodes.
+	 */
+	public int prune(MiningFunction miningFunction){
+
+		switch(miningFunction){
+			// XXX
+			case CLASSIFICATION:
+				return 0;
+			case REGRESSION:
+				break;
+			default:
+				throw new IllegalArgumentException();
+		}
+
+		int result = 0;
+
+		for(int index = 0; index < size(); index++){
+
+			if(isLeaf(index)){
+				continue;
+			}
+
+			long valueBits = Double.doubleToLongBits(this.values[index]);
+
+			long leftValueBits = Double.doubleToLongBits(this.values[this.leftChildren[index]]);
+			long rightValueBits = Double.doubleToLongBits(this.values[this.rightChildren[index]]);
+
+			// The same as Double#equals(Object)
+			if(leftValueBits == valueBits && rightValueBits == valueBits){
+				setLeaf(index);
+
+				result++;
+			}
+		}
+
+		return result;
+	}
+
+	private void setLeaf(int index){
+
+		if(this.shared){
+			this.leftChildren = this.leftChildren.clone();
+			this.rightChildren = this.rightChildren.clone();
+			this.features = this.features.clone();
+
+			this.shared = false;
+		}
+
+		this.leftChildren[index] = TreeArrays.TREE_LEAF;
+		this.rightChildren[index] = TreeArrays.TREE_LEAF;
+		this.features[index] = TreeArrays.TREE_UNDEFINED;
+	}
+
+	public int[] getLeftChildren(){
+		return this.leftChildren;
+	}
+
+	public int[] getRightChildren(){
+		return this.rightChildren;
+	}
+
+	public int[] getFeatures(){
+		return this.features;
+	}
+
+	public double[] getThresholds(){
+		return this.thresholds;
+	}
+
+	public double[] getValues(){
+		return this.values;
+	}
+
+	public double[] getWeights(){
+		return this.weights;
+	}
+
+	private static final int TREE_LEAF = -1;
+	private static final int TREE_UNDEFINED = -2;
+}
@@ -19,13 +19,17 @@
 package sklearn.tree;
 
 import java.util.AbstractList;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import com.google.common.primitives.Doubles;
 import numpy.core.ScalarUtil;
@@ -46,6 +50,8 @@ import org.dmg.pmml.mining.Segment;
 import org.dmg.pmml.mining.Segmentation;
 import org.dmg.pmml.tree.BranchNode;
 import org.dmg.pmml.tree.ClassifierNode;
+import org.dmg.pmml.tree.CountingBranchNode;
+import org.dmg.pmml.tree.CountingLeafNode;
 import org.dmg.pmml.tree.LeafNode;
 import org.dmg.pmml.tree.Node;
 import org.dmg.pmml.tree.NodeTransformer;
@@ -69,11 +75,12 @@ import org.jpmml.model.UnsupportedElementException;
 import org.jpmml.model.visitors.AbstractVisitor;
 import org.jpmml.python.ClassDictUtil;
 import org.jpmml.sklearn.FieldNames;
+import org.jpmml.sklearn.Profiler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import sklearn.Estimator;
 import sklearn.HasEstimatorEnsemble;
-import sklearn.tree.visitors.TreeModelCompactor;
-import sklearn.tree.visitors.TreeModelFlattener;
-import sklearn.tree.visitors.TreeModelPruner;
+import sklearn.tree.visitors.FusedTreeModelTransformer;
 
 public class TreeUtil {
 
@@ -84,46 +91,80 @@ public class TreeUtil {
 	public <E extends Estimator & HasTreeOptions, M extends Model> M transform(E estimator, M model){
 		Boolean winnerId = (Boolean)estimator.getOption(HasTreeOptions.OPTION_WINNER_ID, Boolean.FALSE);
 
-		Map<String, Map<Integer, ?>> nodeExtensions = (Map)estimator.getOption(HasTreeOptions.OPTION_NODE_EXTENSIONS, null);
-		Boolean nodeId = (Boolean)estimator.getOption(HasTreeOptions.OPTION_NODE_ID, winnerId);
-		Boolean nodeScore = (Boolean)estimator.getOption(HasTreeOptions.OPTION_NODE_SCORE, winnerId ? Boolean.TRUE : null);
-
-		boolean fixed = ((nodeExtensions != null) || (nodeId != null && nodeId) || (nodeScore != null && nodeScore));
+		if((Boolean.TRUE).equals(winnerId)){
+			encodeNodeId(model);
+		}
 
-		Boolean compact = (Boolean)estimator.getOption(HasTreeOptions.OPTION_COMPACT, fixed ? Boolean.FALSE : Boolean.TRUE);
-		Boolean flat = (Boolean)estimator.getOption(HasTreeOptions.OPTION_FLAT, Boolean.FALSE);
-		Boolean prune = (Boolean)estimator.getOption(HasTreeOptions.OPTION_PRUNE, fixed ? Boolean.FALSE : Boolean.TRUE);
+		List<Visitor> visitors = createVisitors(estimator);
 
-		if(compact || flat || prune){
+		for(Visitor visitor : visitors){
+			Profiler.Step step = Profiler.start(Profiler.PHASE_VISITOR, (visitor.getClass()).getName(), null);
 
-			if(fixed){
-				throw new IllegalArgumentException("Conflicting tree model options");
+			try {
+				visitor.applyTo(model);
+			} finally {
+				Profiler.finish(step, model);
 			}
+		}
 
-			// Activate defaults
-			nodeExtensions = null;
-			nodeId = winnerId;
-			nodeScore = (winnerId ? Boolean.TRUE : null);
-		} // End if
+		return model;
+	}
+
+	/**
+	 * <p>
+	 * Creates a function that transforms a single tree model right after it has been encoded.
+	 * </p>
+	 *
+	 * @return The function, or <code>null</code> if the tree models must be transformed together using {@link #transform(Estimator, Model)}.
+	 */
+	static
+	public <E extends Estimator & HasTreeOptions> Function<TreeModel, TreeModel> createTreeModelTransformer(E estimator){
+		Boolean winnerId = (Boolean)estimator.getOption(HasTreeOptions.OPTION_WINNER_ID, Boolean.FALSE);
 
+		// The node ids must be collected from untransformed tree models
 		if((Boolean.TRUE).equals(winnerId)){
-			encodeNodeId(model);
+			return null;
 		}
 
-		List<Visitor> visitors = new ArrayList<>();
+		// Fail fast on conflicting options
+		createVisitors(estimator);
 
-		// Prune first, in order to make the tree model smaller for subsequent transformers
-		if((Boolean.TRUE).equals(prune)){
-			visitors.add(new TreeModelPruner());
-		} // End if
+		Function<TreeModel, TreeModel> function = new Function<TreeModel, TreeModel>(){
 
-		if((Boolean.TRUE).equals(compact)){
-			visitors.add(new TreeModelCompactor());
-		} // End if
+			@Override
+			public TreeModel apply(TreeModel treeModel){
+				// Visitors are stateful, and tree models may be encoded in parallel
+				List<Visitor> visitors = createVisitors(estimator);
 
-		if((Boolean.TRUE).equals(flat)){
-			visitors.add(new TreeModelFlattener());
-		} // End if
+				for(Visitor visitor : visitors){
+					Profiler.Step step = Profiler.start(Profiler.PHASE_VISITOR, (visitor.getClass()).getName(), null);
+
+					try {
+						visitor.applyTo(treeModel);
+					} finally {
+						Profiler.finish(step, treeModel);
+					}
+				}
+
+				return treeModel;
+			}
+		};
+
+		return function;
+	}
+
+	static
+	private <E extends Estimator & HasTreeOptions> List<Visitor> createVisitors(E estimator){
+		VisitorOptions options = new VisitorOptions(estimator);
+
+		Map<String, Map<Integer, ?>> nodeExtensions = options.nodeExtensions;
+		Boolean nodeId = options.nodeId;
+		Boolean nodeScore = options.nodeScore;
+		Boolean compact = options.compact;
+		Boolean flat = options.flat;
+		Boolean prune = options.prune;
+
+		List<Visitor> visitors = new ArrayList<>();
 
 		if(nodeExtensions != null){
 			Collection<? extends Map.Entry<String, Map<Integer, ?>>> entries = nodeExtensions.entrySet();
@@ -190,79 +231,118 @@ public class TreeUtil {
 			}
 		} // End if
 
-		if((Boolean.FALSE).equals(nodeId)){
-			Visitor nodeIdCleaner = new AbstractVisitor(){
-
-				@Override
-				public VisitorAction visit(Node node){
-					node.setId(null);
+		FusedTreeModelTransformer treeModelTransformer = new FusedTreeModelTransformer()
+			.setPrune((Boolean.TRUE).equals(prune))
+			.setCompact((Boolean.TRUE).equals(compact))
+			.setFlat((Boolean.TRUE).equals(flat))
+			.setCleanNodeId((Boolean.FALSE).equals(nodeId))
+			.setCleanNodeScore((Boolean.FALSE).equals(nodeScore));
 
-					return super.visit(node);
-				}
-			};
+		if(!treeModelTransformer.isEmpty()){
+			visitors.add(treeModelTransformer);
+		}
 
-			visitors.add(nodeIdCleaner);
-		} // End if
+		return visitors;
+	}
 
-		if((Boolean.FALSE).equals(nodeScore)){
-			Visitor nodeScoreCleaner = new AbstractVisitor(){
+	/**
+	 * <p>
+	 * Resolves the frequency order option.
+	 * </p>
+	 *
+	 * <p>
+	 * Compaction restores the canonical order of binary splits,
+	 * so the option only affects the order of children if the compact option is not active.
+	 * </p>
+	 */
+	static
+	private Boolean getFrequencyOrder(Estimator estimator){
+		Boolean frequencyOrder = (Boolean)estimator.getOption(HasTreeOptions.OPTION_FREQUENCY_ORDER, Boolean.FALSE);
 
-				@Override
-				public VisitorAction visit(Node node){
+		if(frequencyOrder){
+			VisitorOptions options = new VisitorOptions(estimator);
 
-					if(node.hasNodes()){
-						node.setScore(null);
+			if(options.compact){
+				logger.warn("Option \'" + HasTreeOptions.OPTION_FREQUENCY_ORDER + "\' has no effect on the order of children, because option \'" + HasTreeOptions.OPTION_COMPACT + "\' is active. Set option \'" + HasTreeOptions.OPTION_COMPACT + "\' to false to keep the frequency order");
+			}
+		}
 
-						if(node.hasScoreDistributions()){
-							List<ScoreDistribution> scoreDistributions = node.getScoreDistributions();
+		return frequencyOrder;
+	}
 
-							scoreDistributions.clear();
-						}
-					}
+	/**
+	 * <p>
+	 * Resolves the prune option, so that tree models can be pruned already while they are being encoded.
+	 * </p>
+	 */
+	static
+	private Boolean getPrune(Estimator estimator){
+		VisitorOptions options = new VisitorOptions(estimator);
 
-					return super.visit(node);
-				}
-			};
+		return options.prune;
+	}
 
-			visitors.add(nodeScoreCleaner);
-		}
+	static
+	public <E extends Estimator & HasEstimatorEnsemble<T>, T extends Estimator & HasTree> List<TreeModel> encodeTreeModelEnsemble(E estimator, MiningFunction miningFunction, Schema schema){
+		Boolean numeric = (Boolean)estimator.getOption(HasTreeOptions.OPTION_NUMERIC, Boolean.TRUE);
 
-		for(Visitor visitor : visitors){
-			visitor.applyTo(model);
-		}
+		PredicateManager predicateManager = new PredicateManager();
+		ScoreDistributionManager scoreDistributionManager = new ScoreDistributionManager();
 
-		return model;
+		return encodeTreeModelEnsemble(estimator, miningFunction, numeric, predicateManager, scoreDistributionManager, null, schema);
 	}
 
+	/**
+	 * @param transformer A function that transforms each tree model right after it has been encoded, or <code>null</code>.
+	 *
+	 * @see #createTreeModelTransformer(Estimator)
+	 */
 	static
-	public <E extends Estimator & HasEstimatorEnsemble<T>, T extends Estimator & HasTree> List<TreeModel> encodeTreeModelEnsemble(E estimator, MiningFunction miningFunction, Schema schema){
+	public <E extends Estimator & HasEstimatorEnsemble<T>, T extends Estimator & HasTree> List<TreeModel> encodeTreeModelEnsemble(E estimator, MiningFunction miningFunction, Function<TreeModel, TreeModel> transformer, Schema schema){
 		Boolean numeric = (Boolean)estimator.getOption(HasTreeOptions.OPTION_NUMERIC, Boolean.TRUE);
 
 		PredicateManager predicateManager = new PredicateManager();
 		ScoreDistributionManager scoreDistributionManager = new ScoreDistributionManager();
 
-		return encodeTreeModelEnsemble(estimator, miningFunction, numeric, predicateManager, scoreDistributionManager, schema);
+		return encodeTreeModelEnsemble(estimator, miningFunction, numeric, predicateManager, scoreDistributionManager, transformer, schema);
 	}
 
 	static
 	public <E extends Estimator & HasEstimatorEnsemble<T>, T extends Estimator & HasTree> List<TreeModel> encodeTreeModelEnsemble(E estimator, MiningFunction miningFunction, Boolean numeric, PredicateManager predicateManager, ScoreDistributionManager scoreDistributionManager, Schema schema){
+		return encodeTreeModelEnsemble(estimator, miningFunction, numeric, predicateManager, scoreDistributionManager, null, schema);
+	}
+
+	static
+	public <E extends Estimator & HasEstimatorEnsemble<T>, T extends Estimator & HasTree> List<TreeModel> encodeTreeModelEnsemble(E estimator, MiningFunction miningFunction, Boolean numeric, PredicateManager predicateManager, ScoreDistributionManager scoreDistributionManager, Function<TreeModel, TreeModel> transformer, Schema schema){
+		Boolean frequencyOrder = getFrequencyOrder(estimator);
+		Boolean prune = getPrune(estimator);
+		Boolean parallel = (Boolean)estimator.getOption(HasTreeOptions.OPTION_PARALLEL, Boolean.FALSE);
+
 		List<? extends T> estimators = estimator.getEstimators();
 
 		Schema segmentSchema = schema.toAnonymousSchema();
 
+		if(parallel){
+			return encodeTreeModelEnsembleParallel(estimators, miningFunction, numeric, frequencyOrder, prune, predicateManager, scoreDistributionManager, transformer, segmentSchema);
+		}
+
 		Function<T, TreeModel> function = new Function<T, TreeModel>(){
 
 			@Override
 			public TreeModel apply(T estimator){
 				Schema treeModelSchema = toTreeModelSchema(estimator.getDataType(), numeric, segmentSchema);
 
-				TreeModel treeModel = TreeUtil.encodeTreeModel(estimator, miningFunction, numeric, predicateManager, scoreDistributionManager, treeModelSchema);
+				TreeModel treeModel = TreeUtil.encodeTreeModel(estimator, miningFunction, numeric, frequencyOrder, prune, predicateManager, scoreDistributionManager, treeModelSchema);
 
 				// XXX
 				if(estimator.hasFeatureImportances()){
 					Schema featureImportanceSchema = toTreeModelFeatureImportanceSchema(numeric, treeModelSchema);
 
 					estimator.addFeatureImportances(treeModel, featureImportanceSchema);
+				} // End if
+
+				if(transformer != null){
+					treeModel = transformer.apply(treeModel);
 				}
 
 				return treeModel;
@@ -274,27 +354,122 @@ public class TreeUtil {
 			.collect(Collectors.toList());
 	}
 
+	static
+	private <T extends Estimator & HasTree> List<TreeModel> encodeTreeModelEnsembleParallel(List<? extends T> estimators, MiningFunction miningFunction, Boolean numeric, Boolean frequencyOrder, Boolean prune, PredicateManager predicateManager, ScoreDistributionManager scoreDistributionManager, Function<TreeModel, TreeModel> transformer, Schema segmentSchema){
+		List<TreeArrays> treeArrays = new ArrayList<>();
+		List<Schema> treeModelSchemas = new ArrayList<>();
+		List<Schema> featureImportanceSchemas = new ArrayList<>();
+
+		// The encoder is not thread-safe.
+		// Perform all encoder interactions sequentially, in the same order as the sequential mode does
+		for(T estimator : estimators){
+			Schema treeModelSchema = toTreeModelSchema(estimator.getDataType(), numeric, segmentSchema);
+
+			// Decode every tree only once, and hand the arrays over to the workers
+			TreeArrays estimatorTreeArrays = new TreeArrays(estimator.getTree(), frequencyOrder);
+
+			encodeSplitFeatures(estimatorTreeArrays, numeric, treeModelSchema);
+
+			Schema featureImportanceSchema = null;
+
+			if(estimator.hasFeatureImportances()){
+				featureImportanceSchema = toTreeModelFeatureImportanceSchema(numeric, treeModelSchema);
+			}
+
+			treeArrays.add(estimatorTreeArrays);
+			treeModelSchemas.add(treeModelSchema);
+			featureImportanceSchemas.add(featureImportanceSchema);
+		}
+
+		// The predicate manager and the score distribution manager are thread-safe
+		List<TreeModel> result = IntStream.range(0, estimators.size()).parallel()
+			.mapToObj(i -> {
+				Tree tree = (estimators.get(i)).getTree();
+
+				TreeArrays estimatorTreeArrays = treeArrays.get(i);
+
+				// The split features of pruned subtrees have already been encoded
+				if(prune){
+					estimatorTreeArrays.prune(miningFunction);
+				}
+
+				TreeModel treeModel = TreeUtil.encodeTreeModel(tree, estimatorTreeArrays, miningFunction, numeric, predicateManager, scoreDistributionManager, treeModelSchemas.get(i));
+
+				// Feature importances are kept by the encoder, so tree models can be transformed before they are added
+				if(transformer != null){
+					treeModel = transformer.apply(treeModel);
+				}
+
+				return treeModel;
+			})
+			.collect(Collectors.toList());
+
+		for(int i = 0; i < estimators.size(); i++){
+			T estimator = estimators.get(i);
+			Schema featureImportanceSchema = featureImportanceSchemas.get(i);
+
+			// XXX
+			if(featureImportanceSchema != null){
+				estimator.addFeatureImportances(result.get(i), featureImportanceSchema);
+			}
+		}
+
+		return result;
+	}
+
 	static
 	public <E extends Estimator & HasTree> TreeModel encodeTreeModel(E estimator, MiningFunction miningFunction, Schema schema){
 		Boolean numeric = (Boolean)estimator.getOption(HasTreeOptions.OPTION_NUMERIC, Boolean.TRUE);
+		Boolean frequencyOrder = getFrequencyOrder(estimator);
+		Boolean prune = getPrune(estimator);
 
 		PredicateManager predicateManager = new PredicateManager();
 		ScoreDistributionManager scoreDistributionManager = new ScoreDistributionManager();
 
-		return encodeTreeModel(estimator, miningFunction, numeric, predicateManager, scoreDistributionManager, schema);
+		return encodeTreeModel(estimator, miningFunction, numeric, frequencyOrder, prune, predicateManager, scoreDistributionManager, schema);
 	}
 
 	static
 	public <E extends Estimator & HasTree> TreeModel encodeTreeModel(E estimator, MiningFunction miningFunction, Boolean numeric, PredicateManager predicateManager, ScoreDistributionManager scoreDistributionManager, Schema schema){
+		return encodeTreeModel(estimator, miningFunction, numeric, Boolean.FALSE, Boolean.FALSE, predicateManager, scoreDistributionManager, schema);
+	}
+
+	static
+	public <E extends Estimator & HasTree> TreeModel encodeTreeModel(E estimator, MiningFunction miningFunction, Boolean numeric, Boolean frequencyOrder, PredicateManager predicateManager, ScoreDistributionManager scoreDistributionManager, Schema schema){
+		return encodeTreeModel(estimator, miningFunction, numeric, frequencyOrder, Boolean.FALSE, predicateManager, scoreDistributionManager, schema);
+	}
+
+	/**
+	 * @param frequencyOrder If <code>true</code>, then the child with more (weighted) training samples is emitted first.
+	 * @param prune If <code>true</code>, then redundant subtrees are pruned before any nodes are created.
+	 *
+	 * @see HasTreeOptions#OPTION_FREQUENCY_ORDER
+	 * @see HasTreeOptions#OPTION_PRUNE
+	 */
+	static
+	public <E extends Estimator & HasTree> TreeModel encodeTreeModel(E estimator, MiningFunction miningFunction, Boolean numeric, Boolean frequencyOrder, Boolean prune, PredicateManager predicateManager, ScoreDistributionManager scoreDistributionManager, Schema schema){
 		Tree tree = estimator.getTree();
 
-		int[] leftChildren = tree.getChildrenLeft();
-		int[] rightChildren = tree.getChildrenRight();
-		int[] features = tree.getFeature();
-		double[] thresholds = tree.getThreshold();
-		double[] values = tree.getValues();
+		TreeArrays treeArrays = new TreeArrays(tree, frequencyOrder);
 
-		Node root = encodeNode(0, True.INSTANCE, miningFunction, numeric, leftChildren, rightChildren, features, thresholds, values, new CategoryManager(), predicateManager, scoreDistributionManager, schema);
+		if(prune){
+			TreeArrays unprunedTreeArrays = treeArrays.copy();
+
+			int count = treeArrays.prune(miningFunction);
+
+			// Pruned subtrees may contain the first reference to a feature.
+			// Create any derived fields up front, in the same order as without pruning
+			if(count > 0){
+				encodeSplitFeatures(unprunedTreeArrays, numeric, schema);
+			}
+		}
+
+		return encodeTreeModel(tree, treeArrays, miningFunction, numeric, predicateManager, scoreDistributionManager, schema);
+	}
+
+	static
+	private TreeModel encodeTreeModel(Tree tree, TreeArrays treeArrays, MiningFunction miningFunction, boolean numeric, PredicateManager predicateManager, ScoreDistributionManager scoreDistributionManager, Schema schema){
+		Node root = encodeNodes(miningFunction, numeric, treeArrays, predicateManager, scoreDistributionManager, schema);
 
 		TreeModel treeModel = new TreeModel(miningFunction, ModelUtil.createMiningSchema(schema.getLabel()), root)
 			.setSplitCharacteristic(TreeModel.SplitCharacteristic.BINARY_SPLIT);
@@ -305,7 +480,60 @@ public class TreeUtil {
 	}
 
 	static
-	private Node encodeNode(int index, Predicate predicate, MiningFunction miningFunction, boolean numeric, int[] leftChildren, int[] rightChildren, int[] features, double[] thresholds, double[] values, CategoryManager categoryManager, PredicateManager predicateManager, ScoreDistributionManager scoreDistributionManager, Schema schema){
+	private Node encodeNodes(MiningFunction miningFunction, boolean numeric, TreeArrays treeArrays, PredicateManager predicateManager, ScoreDistributionManager scoreDistributionManager, Schema schema){
+		double[] weights = treeArrays.getWeights();
+
+		Node root = null;
+
+		// Depth-first, left-to-right traversal (the same as the original recursive traversal)
+		Deque<NodeTask> tasks = new ArrayDeque<>();
+		tasks.push(new NodeTask(null, 0, True.INSTANCE, new CategoryManager()));
+
+		while(!tasks.isEmpty()){
+			NodeTask task = tasks.pop();
+
+			Node node = encodeNode(task, tasks, miningFunction, numeric, treeArrays, predicateManager, scoreDistributionManager, schema);
+
+			Node parent = task.getParent();
+			if(parent != null){
+				parent.addNodes(node);
+
+				if(weights != null){
+					List<Node> children = parent.getNodes();
+
+					// Binary split predicates are mutually exclusive, so the children can be emitted in any order
+					if(children.size() == 2){
+						Node firstChild = children.get(0);
+						Node secondChild = children.get(1);
+
+						if(weights[(Integer)firstChild.getId()] < weights[(Integer)secondChild.getId()]){
+							Collections.swap(children, 0, 1);
+						}
+					}
+				}
+			} else
+
+			{
+				root = node;
+			}
+		}
+
+		return root;
+	}
+
+	static
+	private Node encodeNode(NodeTask task, Deque<NodeTask> tasks, MiningFunction miningFunction, boolean numeric, TreeArrays treeArrays, PredicateManager predicateManager, ScoreDistributionManager scoreDistributionManager, Schema schema){
+		int[] leftChildren = treeArrays.getLeftChildren();
+		int[] rightChildren = treeArrays.getRightChildren();
+		int[] features = treeArrays.getFeatures();
+		double[] thresholds = treeArrays.getThresholds();
+		double[] values = treeArrays.getValues();
+		double[] weights = treeArrays.getWeights();
+
+		int index = task.getIndex();
+		Predicate predicate = task.getPredicate();
+		CategoryManager categoryManager = task.getCategoryManager();
+
 		Integer id = Integer.valueOf(index);
 
 		int featureIndex = features[index];
@@ -375,9 +603,6 @@ public class TreeUtil {
 			int leftIndex = leftChildren[index];
 			int rightIndex = rightChildren[index];
 
-			Node leftChild = encodeNode(leftIndex, leftPredicate, miningFunction, numeric, leftChildren, rightChildren, features, thresholds, values, leftCategoryManager, predicateManager, scoreDistributionManager, schema);
-			Node rightChild = encodeNode(rightIndex, rightPredicate, miningFunction, numeric, leftChildren, rightChildren, features, thresholds, values, rightCategoryManager, predicateManager, scoreDistributionManager, schema);
-
 			Node result;
 
 			if(miningFunction == MiningFunction.CLASSIFICATION){
@@ -387,16 +612,25 @@ public class TreeUtil {
 			if(miningFunction == MiningFunction.REGRESSION){
 				double value = values[index];
 
-				result = new BranchNode(value, predicate);
+				if(weights != null){
+					result = new CountingBranchNode(value, predicate)
+						.setRecordCount(ValueUtil.narrow(weights[index]));
+				} else
+
+				{
+					result = new BranchNode(value, predicate);
+				}
 			} else
 
 			{
 				throw new IllegalArgumentException();
 			}
 
-			result
-				.setId(id)
-				.addNodes(leftChild, rightChild);
+			result.setId(id);
+
+			// The left child must be popped (and appended to the result node) first
+			tasks.push(new NodeTask(result, rightIndex, rightPredicate, rightCategoryManager));
+			tasks.push(new NodeTask(result, leftIndex, leftPredicate, leftCategoryManager));
 
 			return result;
 		} else
@@ -446,8 +680,16 @@ public class TreeUtil {
 			if(miningFunction == MiningFunction.REGRESSION){
 				double value = values[index];
 
-				result = new LeafNode(value, predicate)
-					.setId(id);
+				if(weights != null){
+					result = new CountingLeafNode(value, predicate)
+						.setId(id)
+						.setRecordCount(ValueUtil.narrow(weights[index]));
+				} else
+
+				{
+					result = new LeafNode(value, predicate)
+						.setId(id);
+				}
 			} else
 
 			{
@@ -458,6 +700,45 @@ public class TreeUtil {
 		}
 	}
 
+	static
+	private void encodeSplitFeatures(TreeArrays treeArrays, boolean numeric, Schema schema){
+		int[] leftChildren = treeArrays.getLeftChildren();
+		int[] rightChildren = treeArrays.getRightChildren();
+		int[] features = treeArrays.getFeatures();
+
+		// Depth-first, left-to-right traversal (the same as the encodeNodes method)
+		int[] indices = new int[features.length + 1];
+		int size = 0;
+
+		indices[size++] = 0;
+
+		while(size > 0){
+			int index = indices[--size];
+
+			int featureIndex = features[index];
+
+			if(featureIndex >= 0){
+				Feature feature = schema.getFeature(featureIndex);
+
+				if(feature instanceof BinaryFeature){
+					// Ignored
+				} else
+
+				if(feature instanceof ThresholdFeature && !numeric){
+					// Ignored
+				} else
+
+				{
+					// Create any derived fields up front
+					toContinuousFeature(feature);
+				}
+
+				indices[size++] = rightChildren[index];
+				indices[size++] = leftChildren[index];
+			}
+		}
+	}
+
 	static
 	private void encodeNodeId(Model model){
 		Output output = ModelUtil.ensureOutput(model);
@@ -601,4 +882,113 @@ public class TreeUtil {
 
 		return result;
 	}
+
+	/**
+	 * <p>
+	 * The tree model transformation options, resolved in one place for both encoding and post-processing.
+	 * </p>
+	 */
+	static
+	private class VisitorOptions {
+
+		private Map<String, Map<Integer, ?>> nodeExtensions = null;
+
+		private Boolean nodeId = null;
+
+		private Boolean nodeScore = null;
+
+		private Boolean compact = null;
+
+		private Boolean flat = null;
+
+		private Boolean prune = null;
+
+
+		private VisitorOptions(Estimator estimator){
+			Boolean winnerId = (Boolean)estimator.getOption(HasTreeOptions.OPTION_WINNER_ID, Boolean.FALSE);
+
+			Map<String, Map<Integer, ?>> nodeExtensions = (Map)estimator.getOption(HasTreeOptions.OPTION_NODE_EXTENSIONS, null);
+			Boolean nodeId = (Boolean)estimator.getOption(HasTreeOptions.OPTION_NODE_ID, winnerId);
+			Boolean nodeScore = (Boolean)estimator.getOption(HasTreeOptions.OPTION_NODE_SCORE, winnerId ? Boolean.TRUE : null);
+
+			boolean fixed = ((nodeExtensions != null) || (nodeId != null && nodeId) || (nodeScore != null && nodeScore));
+
+			Boolean compact = (Boolean)estimator.getOption(HasTreeOptions.OPTION_COMPACT, fixed ? Boolean.FALSE : Boolean.TRUE);
+			Boolean flat = (Boolean)estimator.getOption(HasTreeOptions.OPTION_FLAT, Boolean.FALSE);
+			Boolean prune = (Boolean)estimator.getOption(HasTreeOptions.OPTION_PRUNE, fixed ? Boolean.FALSE : Boolean.TRUE);
+
+			if(compact || flat || prune){
+
+				if(fixed){
+					throw new IllegalArgumentException("Conflicting tree model options");
+				}
+
+				// Activate defaults
+				nodeExtensions = null;
+				nodeId = winnerId;
+				nodeScore = (winnerId ? Boolean.TRUE : null);
+			}
+
+			this.nodeExtensions = nodeExtensions;
+			this.nodeId = nodeId;
+			this.nodeScore = nodeScore;
+			this.compact = compact;
+			this.flat = flat;
+			this.prune = prune;
+		}
+	}
+
+	static
+	private class NodeTask {
+
+		private Node parent = null;
+
+		private int index;
+
+		private Predicate predicate = null;
+
+		private CategoryManager categoryManager = null;
+
+
+		private NodeTask(Node parent, int index, Predicate predicate, CategoryManager categoryManager){
+			setParent(parent);
+			setIndex(index);
+			setPredicate(predicate);
+			setCategoryManager(categoryManager);
+		}
+
+		public Node getParent(){
+			return this.parent;
+		}
+
+		private void setParent(Node parent){
+			this.parent = parent;
+		}
+
+		public int getIndex(){
+			return this.index;
+		}
+
+		private void setIndex(int index){
+			this.index = index;
+		}
+
+		public Predicate getPredicate(){
+			return this.predicate;
+		}
+
+		private void setPredicate(Predicate predicate){
+			this.predicate = predicate;
+		}
+
+		public CategoryManager getCategoryManager(){
+			return this.categoryManager;
+		}
+
+		private void setCategoryManager(CategoryManager categoryManager){
+			this.categoryManager = categoryManager;
+		}
+	}
+
+	private static final Logger logger = LoggerFactory.getLogger(TreeUtil.class);
 }
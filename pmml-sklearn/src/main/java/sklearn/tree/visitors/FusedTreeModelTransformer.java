@@ -0,0 +1,273 @@
+/*
+ * Copyright (c) 2023 Villu Ruusmann
+ *
+ * This file is part of JPMML-SkLearn
+ *
+ * JPMML-SkLearn is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-SkLearn is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-SkLearn.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package sklearn.tree.visitors;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import org.dmg.pmml.MiningFunction;
+import org.dmg.pmml.ScoreDistribution;
+import org.dmg.pmml.True;
+import org.dmg.pmml.VisitorAction;
+import org.dmg.pmml.tree.Node;
+import org.dmg.pmml.tree.TreeModel;
+import org.jpmml.model.visitors.AbstractVisitor;
+
+/**
+ * <p>
+ * A Visitor that prunes, compacts, flattens and cleans tree models in a single post-order pass per tree.
+ * </p>
+ *
+ * The result is the same as applying {@link TreeModelPruner}, {@link TreeModelCompactor}, {@link TreeModelFlattener}
+ * and the node id and node score cleaners one after another.
+ * In order to achieve this, the compaction and flattening of a node is deferred until its parent node has been pruned.
+ *
+ * A tree model can be transformed as soon as it has been encoded, by applying this Visitor directly to it.
+ */
+public class FusedTreeModelTransformer extends AbstractVisitor {
+
+	private boolean prune = false;
+
+	private boolean compact = false;
+
+	private boolean flat = false;
+
+	private boolean cleanNodeId = false;
+
+	private boolean cleanNodeScore = false;
+
+
+	public FusedTreeModelTransformer(){
+	}
+
+	public boolean isEmpty(){
+		return !(this.prune || this.compact || this.flat || this.cleanNodeId || this.cleanNodeScore);
+	}
+
+	@Override
+	public VisitorAction visit(TreeModel treeModel){
+		transform(treeModel);
+
+		return VisitorAction.SKIP;
+	}
+
+	public void transform(TreeModel treeModel){
+		MiningFunction miningFunction = null;
+
+		if(this.prune){
+			miningFunction = TreeModelPruner.pruneTreeModel(treeModel);
+		} // End if
+
+		if(this.compact){
+			miningFunction = TreeModelCompactor.compactTreeModel(treeModel);
+		} // End if
+
+		if(this.flat){
+			miningFunction = TreeModelFlattener.flattenTreeModel(treeModel);
+		}
+
+		Node root = treeModel.requireNode();
+
+		Deque<Frame> frames = new ArrayDeque<>();
+		frames.push(new Frame(root, !root.hasScoreDistributions()));
+
+		while(!frames.isEmpty()){
+			Frame frame = frames.peek();
+
+			Node node = frame.node;
+
+			if(!frame.expanded){
+				frame.expanded = true;
+
+				if(node.hasNodes()){
+					List<Node> children = node.getNodes();
+
+					for(int i = children.size() - 1; i > -1; i--){
+						Node child = children.get(i);
+
+						frames.push(new Frame(child, frame.prunable && !child.hasScoreDistributions()));
+					}
+				}
+
+				continue;
+			}
+
+			frames.pop();
+
+			if(this.prune && frame.prunable){
+				TreeModelPruner.pruneNode(node);
+			} // End if
+
+			if(node.hasNodes()){
+				List<Node> children = new ArrayList<>(node.getNodes());
+
+				for(Node child : children){
+					finish(child, miningFunction);
+				}
+			}
+		}
+
+		finish(root, miningFunction);
+
+		if(this.flat){
+			collapseChildren(root, miningFunction);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Performs all the work that the separate Visitors would perform on the specified node,
+	 * except for flattening it into its parent node.
+	 * </p>
+	 *
+	 * The node has been pruned, and all its descendant nodes have been finished.
+	 */
+	private void finish(Node node, MiningFunction miningFunction){
+
+		if(this.compact){
+			TreeModelCompactor.compactNode(node);
+
+			if(node.hasNodes()){
+				List<Node> children = new ArrayList<>(node.getNodes());
+
+				for(Node child : children){
+
+					if(child.requirePredicate() instanceof True){
+						TreeModelCompactor.collapseNode(node, child, miningFunction);
+					}
+				}
+			}
+		} // End if
+
+		if(this.flat){
+			TreeModelFlattener.flattenNode(node);
+
+			if(node.hasNodes()){
+				List<Node> children = new ArrayList<>(node.getNodes());
+
+				for(Node child : children){
+					collapseChildren(child, miningFunction);
+				}
+			}
+		} // End if
+
+		if(this.cleanNodeId){
+			node.setId(null);
+		} // End if
+
+		if(this.cleanNodeScore){
+
+			if(node.hasNodes()){
+				node.setScore(null);
+
+				if(node.hasScoreDistributions()){
+					List<ScoreDistribution> scoreDistributions = node.getScoreDistributions();
+
+					scoreDistributions.clear();
+				}
+			}
+		}
+	}
+
+	static
+	private void collapseChildren(Node node, MiningFunction miningFunction){
+
+		if(node.hasNodes()){
+			List<Node> children = new ArrayList<>(node.getNodes());
+
+			for(Node child : children){
+
+				if(child.requirePredicate() instanceof True){
+					TreeModelFlattener.collapseNode(node, child, miningFunction);
+				}
+			}
+		}
+	}
+
+	public boolean getPrune(){
+		return this.prune;
+	}
+
+	public FusedTreeModelTransformer setPrune(boolean prune){
+		this.prune = prune;
+
+		return this;
+	}
+
+	public boolean getCompact(){
+		return this.compact;
+	}
+
+	public FusedTreeModelTransformer setCompact(boolean compact){
+		this.compact = compact;
+
+		return this;
+	}
+
+	public boolean getFlat(){
+		return this.flat;
+	}
+
+	public FusedTreeModelTransformer setFlat(boolean flat){
+		this.flat = flat;
+
+		return this;
+	}
+
+	public boolean getCleanNodeId(){
+		return this.cleanNodeId;
+	}
+
+	public FusedTreeModelTransformer setCleanNodeId(boolean cleanNodeId){
+		this.cleanNodeId = cleanNodeId;
+
+		return this;
+	}
+
+	public boolean getCleanNodeScore(){
+		return this.cleanNodeScore;
+	}
+
+	public FusedTreeModelTransformer setCleanNodeScore(boolean cleanNodeScore){
+		this.cleanNodeScore = cleanNodeScore;
+
+		return this;
+	}
+
+	static
+	private class Frame {
+
+		private Node node = null;
+
+		/**
+		 * <code>true</code> if neither this node nor any of its ancestor nodes has ScoreDistributions.
+		 */
+		private boolean prunable;
+
+		private boolean expanded = false;
+
+
+		private Frame(Node node, boolean prunable){
+			this.node = node;
+			this.prunable = prunable;
+		}
+	}
+}
@@ -39,6 +39,40 @@ public class TreeModelCompactor extends AbstractTreeModelTransformer {
 
 	@Override
 	public void enterNode(Node node){
+		compactNode(node);
+	}
+
+	@Override
+	public void exitNode(Node node){
+		Predicate predicate = node.requirePredicate();
+
+		if(predicate instanceof True){
+			Node parentNode = getParentNode();
+
+			if(parentNode == null){
+				return;
+			}
+
+			collapseNode(parentNode, node, this.miningFunction);
+		}
+	}
+
+	@Override
+	public void enterTreeModel(TreeModel treeModel){
+		super.enterTreeModel(treeModel);
+
+		this.miningFunction = compactTreeModel(treeModel);
+	}
+
+	@Override
+	public void exitTreeModel(TreeModel treeModel){
+		super.exitTreeModel(treeModel);
+
+		this.miningFunction = null;
+	}
+
+	static
+	void compactNode(Node node){
 		Object id = node.getId();
 		Object score = node.getScore();
 
@@ -69,6 +103,19 @@ public class TreeModelCompactor extends AbstractTreeModelTransformer {
 				secondChild = children.get(1);
 			} else
 
+			if(hasOperator(firstPredicate, SimplePredicate.Operator.EQUAL) && hasOperator(secondPredicate, SimplePredicate.Operator.NOT_EQUAL)){
+				// Ignored
+			} else
+
+			// Frequency-ordered binary split.
+			// Restore the canonical order, so that the greater-than child becomes the fallback child (the same as in SkLearn)
+			if(hasOperator(firstPredicate, SimplePredicate.Operator.GREATER_THAN) && hasOperator(secondPredicate, SimplePredicate.Operator.LESS_OR_EQUAL)){
+				children = swapChildren(node);
+
+				firstChild = children.get(0);
+				secondChild = children.get(1);
+			} else
+
 			if(hasOperator(firstPredicate, SimplePredicate.Operator.LESS_OR_EQUAL) && hasOperator(secondPredicate, SimplePredicate.Operator.GREATER_THAN)){
 				// Ignored
 			} else
@@ -89,38 +136,30 @@ public class TreeModelCompactor extends AbstractTreeModelTransformer {
 		node.setId(null);
 	}
 
-	@Override
-	public void exitNode(Node node){
-		Predicate predicate = node.requirePredicate();
-
-		if(predicate instanceof True){
-			Node parentNode = getParentNode();
-
-			if(parentNode == null){
-				return;
-			} // End if
-
-			if(this.miningFunction == MiningFunction.CLASSIFICATION){
+	/**
+	 * @param node A child node of the parent node, which has a {@link True} predicate.
+	 */
+	static
+	void collapseNode(Node parentNode, Node node, MiningFunction miningFunction){
 
-				// Replace intermediate nodes, but not terminal nodes
-				if(node.hasNodes()){
-					replaceChildWithGrandchildren(parentNode, node);
-				}
-			} else
-
-			if(this.miningFunction == MiningFunction.REGRESSION){
-				parentNode.setScore(null);
+		if(miningFunction == MiningFunction.CLASSIFICATION){
 
-				initScore(parentNode, node);
+			// Replace intermediate nodes, but not terminal nodes
+			if(node.hasNodes()){
 				replaceChildWithGrandchildren(parentNode, node);
 			}
+		} else
+
+		if(miningFunction == MiningFunction.REGRESSION){
+			parentNode.setScore(null);
+
+			initScore(parentNode, node);
+			replaceChildWithGrandchildren(parentNode, node);
 		}
 	}
 
-	@Override
-	public void enterTreeModel(TreeModel treeModel){
-		super.enterTreeModel(treeModel);
-
+	static
+	MiningFunction compactTreeModel(TreeModel treeModel){
 		TreeModel.MissingValueStrategy missingValueStrategy = treeModel.getMissingValueStrategy();
 		if(missingValueStrategy != TreeModel.MissingValueStrategy.NONE){
 			throw new UnsupportedAttributeException(treeModel, missingValueStrategy);
@@ -151,13 +190,6 @@ public class TreeModelCompactor extends AbstractTreeModelTransformer {
 				throw new UnsupportedAttributeException(treeModel, miningFunction);
 		}
 
-		this.miningFunction = miningFunction;
-	}
-
-	@Override
-	public void exitTreeModel(TreeModel treeModel){
-		super.exitTreeModel(treeModel);
-
-		this.miningFunction = null;
+		return miningFunction;
 	}
 }
\ No newline at end of file
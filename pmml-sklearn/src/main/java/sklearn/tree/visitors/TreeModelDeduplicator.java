@@ -0,0 +1,261 @@
+/*
+ * Copyright (c) 2023 Villu Ruusmann
+ *
+ * This file is part of JPMML-SkLearn
+ *
+ * JPMML-SkLearn is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-SkLearn is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-SkLearn.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package sklearn.tree.visitors;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.dmg.pmml.HasExtensions;
+import org.dmg.pmml.Predicate;
+import org.dmg.pmml.ScoreDistribution;
+import org.dmg.pmml.VisitorAction;
+import org.dmg.pmml.tree.Node;
+import org.dmg.pmml.tree.TreeModel;
+import org.jpmml.model.visitors.AbstractVisitor;
+
+/**
+ * <p>
+ * A Visitor that shares structurally identical subtrees between tree models.
+ * </p>
+ *
+ * Two nodes are identical if they are of the same class, have equal ids, scores, record counts and default children,
+ * and have the very same Predicate, ScoreDistribution and child Node instances.
+ * Nodes that can carry Extensions (and other content such as Partitions and embedded models) are never shared.
+ * Predicates and score distributions are expected to be interned using the same {@link org.jpmml.converter.PredicateManager} and {@link org.jpmml.converter.ScoreDistributionManager}.
+ *
+ * A node is never shared within a single tree model, because evaluators may identify nodes by their instance.
+ *
+ * This Visitor should be applied last, because any later modification of a shared node would affect all tree models that contain it.
+ * The serialized form of tree models does not change.
+ */
+public class TreeModelDeduplicator extends AbstractVisitor {
+
+	private Map<NodeKey, Node> nodes = new HashMap<>();
+
+	private int sharedCount = 0;
+
+
+	@Override
+	public VisitorAction visit(TreeModel treeModel){
+		Node root = treeModel.requireNode();
+
+		treeModel.setNode(deduplicate(root));
+
+		return VisitorAction.SKIP;
+	}
+
+	/**
+	 * @return The number of nodes that were replaced with a previously seen identical node.
+	 */
+	public int getSharedCount(){
+		return this.sharedCount;
+	}
+
+	private Node deduplicate(Node root){
+		Set<Node> treeNodes = Collections.newSetFromMap(new IdentityHashMap<>());
+
+		Deque<Node> nodes = new ArrayDeque<>();
+		Deque<Node> exitNodes = new ArrayDeque<>();
+
+		nodes.push(root);
+
+		// Every node is pushed onto the exit stack after its parent, so it is popped before its parent
+		while(!nodes.isEmpty()){
+			Node node = nodes.pop();
+
+			exitNodes.push(node);
+
+			if(node.hasNodes()){
+				List<Node> children = node.getNodes();
+
+				for(Node child : children){
+					nodes.push(child);
+				}
+			}
+		}
+
+		while(!exitNodes.isEmpty()){
+			Node node = exitNodes.pop();
+
+			if(node.hasNodes()){
+				List<Node> children = node.getNodes();
+
+				for(int i = 0; i < children.size(); i++){
+					children.set(i, intern(children.get(i), treeNodes));
+				}
+			}
+		}
+
+		return intern(root, treeNodes);
+	}
+
+	/**
+	 * <p>
+	 * The children of the node have already been interned.
+	 * Therefore, the interned node differs from the node only by its own instance.
+	 * </p>
+	 */
+	private Node intern(Node node, Set<Node> treeNodes){
+
+		if(node instanceof HasExtensions){
+			treeNodes.add(node);
+
+			return node;
+		}
+
+		NodeKey key = new NodeKey(node);
+
+		Node result = this.nodes.putIfAbsent(key, node);
+		if(result == null || !treeNodes.add(result)){
+			treeNodes.add(node);
+
+			return node;
+		}
+
+		this.sharedCount++;
+
+		return result;
+	}
+
+	static
+	private class NodeKey {
+
+		private Node node = null;
+
+		private int hashCode;
+
+
+		private NodeKey(Node node){
+			this.node = node;
+			this.hashCode = computeHashCode(node);
+		}
+
+		@Override
+		public int hashCode(){
+			return this.hashCode;
+		}
+
+		@Override
+		public boolean equals(Object object){
+
+			if(object instanceof NodeKey){
+				NodeKey that = (NodeKey)object;
+
+				return (this.hashCode == that.hashCode) && isIdentical(this.node, that.node);
+			}
+
+			return false;
+		}
+
+		static
+		private int computeHashCode(Node node){
+			int result = (node.getClass()).hashCode();
+
+			result = 31 * result + Objects.hashCode(node.getId());
+			result = 31 * result + Objects.hashCode(node.getScore());
+			result = 31 * result + Objects.hashCode(node.getRecordCount());
+			result = 31 * result + Objects.hashCode(node.getDefaultChild());
+			result = 31 * result + System.identityHashCode(node.getPredicate());
+
+			if(node.hasScoreDistributions()){
+				result = 31 * result + identityHashCode(node.getScoreDistributions());
+			} // End if
+
+			if(node.hasNodes()){
+				result = 31 * result + identityHashCode(node.getNodes());
+			}
+
+			return result;
+		}
+
+		static
+		private boolean isIdentical(Node left, Node right){
+
+			if(left.getClass() != right.getClass()){
+				return false;
+			}
+
+			Predicate leftPredicate = left.getPredicate();
+			Predicate rightPredicate = right.getPredicate();
+
+			if(leftPredicate != rightPredicate){
+				return false;
+			} // End if
+
+			if(!Objects.equals(left.getId(), right.getId()) || !Objects.equals(left.getScore(), right.getScore()) || !Objects.equals(left.getRecordCount(), right.getRecordCount())){
+				return false;
+			} // End if
+
+			if(!Objects.equals(left.getDefaultChild(), right.getDefaultChild())){
+				return false;
+			}
+
+			List<ScoreDistribution> leftScoreDistributions = (left.hasScoreDistributions() ? left.getScoreDistributions() : null);
+			List<ScoreDistribution> rightScoreDistributions = (right.hasScoreDistributions() ? right.getScoreDistributions() : null);
+
+			if(!isIdentical(leftScoreDistributions, rightScoreDistributions)){
+				return false;
+			}
+
+			List<Node> leftChildren = (left.hasNodes() ? left.getNodes() : null);
+			List<Node> rightChildren = (right.hasNodes() ? right.getNodes() : null);
+
+			return isIdentical(leftChildren, rightChildren);
+		}
+
+		static
+		private boolean isIdentical(List<?> left, List<?> right){
+
+			if(left == null || right == null){
+				return (left == right);
+			} // End if
+
+			if(left.size() != right.size()){
+				return false;
+			}
+
+			for(int i = 0; i < left.size(); i++){
+
+				if(left.get(i) != right.get(i)){
+					return false;
+				}
+			}
+
+			return true;
+		}
+
+		static
+		private int identityHashCode(List<?> objects){
+			int result = 1;
+
+			for(Object object : objects){
+				result = 31 * result + System.identityHashCode(object);
+			}
+
+			return result;
+		}
+	}
+}
@@ -39,6 +39,40 @@ public class TreeModelFlattener extends AbstractTreeModelTransformer {
 
 	@Override
 	public void enterNode(Node node){
+		flattenNode(node);
+	}
+
+	@Override
+	public void exitNode(Node node){
+		Predicate predicate = node.requirePredicate();
+
+		if(predicate instanceof True){
+			Node parentNode = getParentNode();
+
+			if(parentNode == null){
+				return;
+			}
+
+			collapseNode(parentNode, node, this.miningFunction);
+		}
+	}
+
+	@Override
+	public void enterTreeModel(TreeModel treeModel){
+		super.enterTreeModel(treeModel);
+
+		this.miningFunction = flattenTreeModel(treeModel);
+	}
+
+	@Override
+	public void exitTreeModel(TreeModel treeModel){
+		super.exitTreeModel(treeModel);
+
+		this.miningFunction = null;
+	}
+
+	static
+	void flattenNode(Node node){
 
 		if(node.hasNodes()){
 			List<Node> children = node.getNodes();
@@ -76,43 +110,34 @@ public class TreeModelFlattener extends AbstractTreeModelTransformer {
 		}
 	}
 
-	@Override
-	public void exitNode(Node node){
-		Predicate predicate = node.requirePredicate();
-
-		if(predicate instanceof True){
-			Node parentNode = getParentNode();
-
-			if(parentNode == null){
-				return;
-			}
-
-			List<Node> parentChildren = parentNode.getNodes();
-			if(parentChildren.size() != 1){
-				return;
-			}
+	/**
+	 * @param node A child node of the parent node, which has a {@link True} predicate.
+	 */
+	static
+	void collapseNode(Node parentNode, Node node, MiningFunction miningFunction){
+		List<Node> parentChildren = parentNode.getNodes();
+		if(parentChildren.size() != 1){
+			return;
+		}
 
-			boolean success = parentChildren.remove(node);
-			if(!success){
-				throw new UnsupportedElementException(parentNode);
-			} // End if
+		boolean success = parentChildren.remove(node);
+		if(!success){
+			throw new UnsupportedElementException(parentNode);
+		} // End if
 
-			if(this.miningFunction == MiningFunction.CLASSIFICATION){
-				initScoreDistribution(parentNode, node);
-			} else
+		if(miningFunction == MiningFunction.CLASSIFICATION){
+			initScoreDistribution(parentNode, node);
+		} else
 
-			if(this.miningFunction == MiningFunction.REGRESSION){
-				parentNode.setScore(null);
+		if(miningFunction == MiningFunction.REGRESSION){
+			parentNode.setScore(null);
 
-				initScore(parentNode, node);
-			}
+			initScore(parentNode, node);
 		}
 	}
 
-	@Override
-	public void enterTreeModel(TreeModel treeModel){
-		super.enterTreeModel(treeModel);
-
+	static
+	MiningFunction flattenTreeModel(TreeModel treeModel){
 		treeModel.setSplitCharacteristic(TreeModel.SplitCharacteristic.MULTI_SPLIT);
 
 		MiningFunction miningFunction = treeModel.requireMiningFunction();
@@ -124,14 +149,7 @@ public class TreeModelFlattener extends AbstractTreeModelTransformer {
 				throw new UnsupportedAttributeException(treeModel, miningFunction);
 		}
 
-		this.miningFunction = miningFunction;
-	}
-
-	@Override
-	public void exitTreeModel(TreeModel treeModel){
-		super.exitTreeModel(treeModel);
-
-		this.miningFunction = null;
+		return miningFunction;
 	}
 
 	static
@@ -144,7 +162,8 @@ public class TreeModelFlattener extends AbstractTreeModelTransformer {
 
 		SimplePredicate simplePredicate = (SimplePredicate)predicate;
 
-		if(!hasOperator(simplePredicate, SimplePredicate.Operator.LESS_OR_EQUAL)){
+		// Frequency-ordered binary splits chain greater-than predicates instead
+		if(!hasOperator(simplePredicate, SimplePredicate.Operator.LESS_OR_EQUAL) && !hasOperator(simplePredicate, SimplePredicate.Operator.GREATER_THAN)){
 			return null;
 		} // End if
 
@@ -50,6 +50,25 @@ public class TreeModelPruner extends AbstractTreeModelTransformer {
 
 	@Override
 	public void exitNode(Node node){
+		pruneNode(node);
+	}
+
+	@Override
+	public void enterTreeModel(TreeModel treeModel){
+		super.enterTreeModel(treeModel);
+
+		this.miningFunction = pruneTreeModel(treeModel);
+	}
+
+	@Override
+	public void exitTreeModel(TreeModel treeModel){
+		super.exitTreeModel(treeModel);
+
+		this.miningFunction = null;
+	}
+
+	static
+	void pruneNode(Node node){
 		Object score = node.getScore();
 
 		if(node.hasScoreDistributions()){
@@ -73,11 +92,10 @@ public class TreeModelPruner extends AbstractTreeModelTransformer {
 		}
 	}
 
-	@Override
-	public void enterTreeModel(TreeModel treeModel){
-		super.enterTreeModel(treeModel);
-
+	static
+	MiningFunction pruneTreeModel(TreeModel treeModel){
 		MiningFunction miningFunction = treeModel.requireMiningFunction();
+
 		switch(miningFunction){
 			case CLASSIFICATION:
 			case REGRESSION:
@@ -86,14 +104,7 @@ public class TreeModelPruner extends AbstractTreeModelTransformer {
 				throw new UnsupportedAttributeException(treeModel, miningFunction);
 		}
 
-		this.miningFunction = miningFunction;
-	}
-
-	@Override
-	public void exitTreeModel(TreeModel treeModel){
-		super.exitTreeModel(treeModel);
-
-		this.miningFunction = null;
+		return miningFunction;
 	}
 
 	static
@@ -27,6 +27,7 @@ import org.dmg.pmml.OpType;
 import org.dmg.pmml.mining.MiningModel;
 import org.dmg.pmml.regression.RegressionModel;
 import org.jpmml.converter.CategoricalLabel;
+import org.jpmml.converter.Matrix;
 import org.jpmml.converter.ModelUtil;
 import org.jpmml.converter.Schema;
 import org.jpmml.converter.SchemaUtil;
@@ -66,12 +67,12 @@ public class GBDTLRClassifier extends Classifier {
 
 		SchemaUtil.checkSize(2, categoricalLabel);
 
-		List<? extends Number> coef = lr.getCoef();
+		Matrix<? extends Number> coef = lr.getCoefMatrix();
 		List<? extends Number> intercept = lr.getIntercept();
 
 		Schema segmentSchema = schema.toAnonymousSchema();
 
-		MiningModel miningModel = GBDTUtil.encodeModel(gbdt, ohe, coef, Iterables.getOnlyElement(intercept), segmentSchema)
+		MiningModel miningModel = GBDTUtil.encodeModel(gbdt, ohe, coef.getValues(), Iterables.getOnlyElement(intercept), segmentSchema)
 			.setOutput(ModelUtil.createPredictedOutput(Estimator.FIELD_DECISION_FUNCTION, OpType.CONTINUOUS, DataType.DOUBLE));
 
 		return MiningModelUtil.createBinaryLogisticClassification(miningModel, 1d, 0d, RegressionModel.NormalizationMethod.LOGIT, lr.hasProbabilityDistribution(), schema);
@@ -18,18 +18,19 @@
  */
 package sklearn2pmml.ensemble;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.LinkedHashMap;
+import java.util.Deque;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.IntStream;
 
 import org.dmg.pmml.DataType;
 import org.dmg.pmml.MiningFunction;
 import org.dmg.pmml.Model;
 import org.dmg.pmml.ScoreDistribution;
-import org.dmg.pmml.Visitor;
-import org.dmg.pmml.VisitorAction;
 import org.dmg.pmml.mining.MiningModel;
+import org.dmg.pmml.mining.Segment;
 import org.dmg.pmml.mining.Segmentation;
 import org.dmg.pmml.tree.Node;
 import org.dmg.pmml.tree.TreeModel;
@@ -41,10 +42,10 @@ import org.jpmml.converter.ModelUtil;
 import org.jpmml.converter.Schema;
 import org.jpmml.converter.ValueUtil;
 import org.jpmml.converter.mining.MiningModelUtil;
-import org.jpmml.model.visitors.AbstractVisitor;
 import org.jpmml.python.ClassDictUtil;
 import sklearn.Estimator;
 import sklearn.preprocessing.MultiOneHotEncoder;
+import sklearn.tree.HasTreeOptions;
 
 public class GBDTUtil {
 
@@ -53,6 +54,8 @@ public class GBDTUtil {
 
 	static
 	public MiningModel encodeModel(Estimator gbdt, MultiOneHotEncoder ohe, List<? extends Number> coef, Number intercept, Schema schema){
+		Boolean parallel = (Boolean)gbdt.getOption(HasTreeOptions.OPTION_PARALLEL, Boolean.FALSE);
+
 		Model model;
 
 		if(gbdt instanceof HasNativeConfiguration){
@@ -75,37 +78,44 @@ public class GBDTUtil {
 
 		List<TreeModel> treeModels = new ArrayList<>();
 
-		Visitor modelVisitor = new AbstractVisitor(){
-
-			@Override
-			public VisitorAction visit(TreeModel treeModel){
-				treeModels.add(treeModel);
-
-				return super.visit(treeModel);
-			}
-		};
-		modelVisitor.applyTo(model);
+		collectTreeModels(model, treeModels);
 
 		List<List<?>> treeCategories = ohe.getCategories();
 
 		ClassDictUtil.checkSize(treeModels, treeCategories);
 
-		List<Map<Integer, Number>> treeNodeScores = new ArrayList<>();
+		List<Number[]> treeNodeScores = new ArrayList<>();
 
 		int coefOffset = 0;
 
 		for(List<?> treeCategory : treeCategories){
-			Map<Integer, Number> nodeScores = new LinkedHashMap<>();
+			int[] ids = new int[treeCategory.size()];
+
+			int maxId = -1;
+
+			for(int i = 0; i < ids.length; i++){
+				int id = ValueUtil.asInt((Number)treeCategory.get(i));
+
+				if(id < 0){
+					throw new IllegalArgumentException(String.valueOf(id));
+				}
+
+				ids[i] = id;
 
-			for(int i = 0; i < treeCategory.size(); i++){
-				Integer id = ValueUtil.asInteger((Number)treeCategory.get(i));
+				maxId = Math.max(maxId, id);
+			}
+
+			// Leaf scores indexed by node identifier
+			Number[] nodeScores = new Number[maxId + 1];
+
+			for(int i = 0; i < ids.length; i++){
 				Number score = coef.get(coefOffset + i);
 
 				if(ValueUtil.isZeroLike(score)){
 					score = 0d;
 				}
 
-				nodeScores.put(id, score);
+				nodeScores[ids[i]] = score;
 			}
 
 			treeNodeScores.add(nodeScores);
@@ -115,73 +125,128 @@ public class GBDTUtil {
 
 		ClassDictUtil.checkSize(coefOffset, coef);
 
-		for(int i = 0; i < treeModels.size(); i++){
-			TreeModel treeModel = treeModels.get(i);
-			Map<Integer, Number> nodeScores = treeNodeScores.get(i);
+		IntStream indices = IntStream.range(0, treeModels.size());
+
+		// Tree models do not share nodes, so they can be rescored independently of one another
+		if(parallel){
+			indices = indices.parallel();
+		}
+
+		indices.forEach(i -> rescoreTreeModel(treeModels.get(i), treeNodeScores.get(i)));
+
+		ModelEncoder encoder = (ModelEncoder)schema.getEncoder();
+		Label label = schema.getLabel();
+
+		ContinuousLabel continuousLabel;
 
-			treeModel
-				.setMiningFunction(MiningFunction.REGRESSION)
-				.setMathContext(null);
+		if(label instanceof ContinuousLabel){
+			continuousLabel = (ContinuousLabel)label;
+		} else
 
-			Visitor treeModelVisitor = new AbstractVisitor(){
+		{
+			continuousLabel = new ContinuousLabel(DataType.DOUBLE);
+		}
 
-				@Override
-				public VisitorAction visit(Node node){
-					Object id = node.getId();
+		MiningModel miningModel = new MiningModel(MiningFunction.REGRESSION, ModelUtil.createMiningSchema(continuousLabel))
+			.setSegmentation(MiningModelUtil.createSegmentation(Segmentation.MultipleModelMethod.SUM, Segmentation.MissingPredictionTreatment.RETURN_MISSING, treeModels))
+			.setTargets(ModelUtil.createRescaleTargets(null, intercept, continuousLabel));
 
-					if(id instanceof String){
-						String string = (String)id;
+		encoder.transferContent(model, miningModel);
 
-						id = Integer.parseInt(string);
-					} else
+		return miningModel;
+	}
 
-					if(id instanceof Number){
-						Number number = (Number)id;
+	static
+	private void rescoreTreeModel(TreeModel treeModel, Number[] nodeScores){
+		treeModel
+			.setMiningFunction(MiningFunction.REGRESSION)
+			.setMathContext(null);
 
-						id = ValueUtil.asInteger(number);
-					} else
+		Deque<Node> nodes = new ArrayDeque<>();
+		nodes.push(treeModel.requireNode());
 
-					{
-						throw new IllegalArgumentException(String.valueOf(id));
-					} // End if
+		while(!nodes.isEmpty()){
+			Node node = nodes.pop();
 
-					if(node.hasScoreDistributions()){
-						List<ScoreDistribution> scoreDistributions = node.getScoreDistributions();
+			if(node.hasScoreDistributions()){
+				List<ScoreDistribution> scoreDistributions = node.getScoreDistributions();
 
-						scoreDistributions.clear();
-					}
+				scoreDistributions.clear();
+			}
 
-					Number score = nodeScores.get((Integer)id);
+			Number score = null;
 
-					node
-						//.setId(null)
-						.setScore(score);
+			if(node.hasNodes()){
+				List<Node> children = node.getNodes();
 
-					return super.visit(node);
+				for(Node child : children){
+					nodes.push(child);
 				}
-			};
-			treeModelVisitor.applyTo(treeModel);
+			} else
+
+			{
+				// Only leaf node identifiers appear among the categories
+				int id = parseId(node.getId());
+
+				score = (id >= 0 && id < nodeScores.length) ? nodeScores[id] : null;
+			}
+
+			node
+				//.setId(null)
+				.setScore(score);
 		}
+	}
 
-		ModelEncoder encoder = (ModelEncoder)schema.getEncoder();
-		Label label = schema.getLabel();
+	/**
+	 * <p>
+	 * Collects tree models by walking the segmentations of mining models.
+	 * Unlike a {@link org.dmg.pmml.Visitor}, does not descend into the nodes of tree models.
+	 * </p>
+	 */
+	static
+	private void collectTreeModels(Model model, List<TreeModel> treeModels){
 
-		ContinuousLabel continuousLabel;
+		if(model instanceof TreeModel){
+			TreeModel treeModel = (TreeModel)model;
 
-		if(label instanceof ContinuousLabel){
-			continuousLabel = (ContinuousLabel)label;
+			treeModels.add(treeModel);
 		} else
 
-		{
-			continuousLabel = new ContinuousLabel(DataType.DOUBLE);
+		if(model instanceof MiningModel){
+			MiningModel miningModel = (MiningModel)model;
+
+			Segmentation segmentation = miningModel.requireSegmentation();
+
+			List<Segment> segments = segmentation.getSegments();
+			for(Segment segment : segments){
+				collectTreeModels(segment.requireModel(), treeModels);
+			}
 		}
+	}
 
-		MiningModel miningModel = new MiningModel(MiningFunction.REGRESSION, ModelUtil.createMiningSchema(continuousLabel))
-			.setSegmentation(MiningModelUtil.createSegmentation(Segmentation.MultipleModelMethod.SUM, Segmentation.MissingPredictionTreatment.RETURN_MISSING, treeModels))
-			.setTargets(ModelUtil.createRescaleTargets(null, intercept, continuousLabel));
+	static
+	private int parseId(Object id){
 
-		encoder.transferContent(model, miningModel);
+		if(id instanceof Integer){
+			Integer integer = (Integer)id;
 
-		return miningModel;
+			return integer.intValue();
+		} else
+
+		if(id instanceof Number){
+			Number number = (Number)id;
+
+			return ValueUtil.asInt(number);
+		} else
+
+		if(id instanceof String){
+			String string = (String)id;
+
+			return Integer.parseInt(string);
+		} else
+
+		{
+			throw new IllegalArgumentException(String.valueOf(id));
+		}
 	}
-}
\ No newline at end of file
+}
@@ -68,6 +68,7 @@ import org.jpmml.converter.visitors.AbstractExtender;
 import org.jpmml.python.ClassDictUtil;
 import org.jpmml.python.PythonObject;
 import org.jpmml.sklearn.FieldNames;
+import org.jpmml.sklearn.Profiler;
 import org.jpmml.sklearn.SkLearnEncoder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -377,48 +378,54 @@ public class PMMLPipeline extends Pipeline {
 	private void encodeOutput(Output output, List<OutputField> outputFields, Transformer transformer, SkLearnEncoder encoder){
 		SkLearnEncoder outputEncoder = new SkLearnEncoder();
 
-		Model model = encoder.getModel();
-		if(model != null){
-			outputEncoder.setModel(model);
-		}
+		Profiler.Step step = Profiler.start(Profiler.PHASE_OUTPUT, transformer.getClassName(), outputEncoder);
 
-		List<Feature> features = new ArrayList<>();
+		try {
+			Model model = encoder.getModel();
+			if(model != null){
+				outputEncoder.setModel(model);
+			}
 
-		for(OutputField outputField : outputFields){
-			DataField dataField = outputEncoder.createDataField(outputField.requireName(), outputField.requireOpType(), outputField.requireDataType());
+			List<Feature> features = new ArrayList<>();
 
-			features.add(new WildcardFeature(outputEncoder, dataField));
-		}
+			for(OutputField outputField : outputFields){
+				DataField dataField = outputEncoder.createDataField(outputField.requireName(), outputField.requireOpType(), outputField.requireDataType());
 
-		transformer.encode(features, outputEncoder);
+				features.add(new WildcardFeature(outputEncoder, dataField));
+			}
 
-		Collection<DerivedField> derivedFields = (outputEncoder.getDerivedFields()).values();
+			transformer.encode(features, outputEncoder);
 
-		for(Iterator<DerivedField> it = derivedFields.iterator(); it.hasNext(); ){
-			DerivedField derivedField = it.next();
+			Collection<DerivedField> derivedFields = (outputEncoder.getDerivedFields()).values();
 
-			OutputField outputField;
+			for(Iterator<DerivedField> it = derivedFields.iterator(); it.hasNext(); ){
+				DerivedField derivedField = it.next();
 
-			if(derivedField instanceof DerivedOutputField){
-				DerivedOutputField derivedOutputField = (DerivedOutputField)derivedField;
+				OutputField outputField;
 
-				outputField = derivedOutputField.getOutputField();
-			} else
+				if(derivedField instanceof DerivedOutputField){
+					DerivedOutputField derivedOutputField = (DerivedOutputField)derivedField;
 
-			{
-				outputField = new OutputField(derivedField.requireName(), derivedField.requireOpType(), derivedField.requireDataType())
-					.setResultFeature(ResultFeature.TRANSFORMED_VALUE)
-					.setFinalResult(!it.hasNext())
-					.setExpression(derivedField.requireExpression());
-			}
+					outputField = derivedOutputField.getOutputField();
+				} else
 
-			output.addOutputFields(outputField);
-		}
+				{
+					outputField = new OutputField(derivedField.requireName(), derivedField.requireOpType(), derivedField.requireDataType())
+						.setResultFeature(ResultFeature.TRANSFORMED_VALUE)
+						.setFinalResult(!it.hasNext())
+						.setExpression(derivedField.requireExpression());
+				}
 
-		Map<String, DefineFunction> defineFunctions = outputEncoder.getDefineFunctions();
+				output.addOutputFields(outputField);
+			}
+
+			Map<String, DefineFunction> defineFunctions = outputEncoder.getDefineFunctions();
 
-		for(DefineFunction defineFunction : defineFunctions.values()){
-			encoder.addDefineFunction(defineFunction);
+			for(DefineFunction defineFunction : defineFunctions.values()){
+				encoder.addDefineFunction(defineFunction);
+			}
+		} finally {
+			Profiler.finish(step);
 		}
 	}
 
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2023 Villu Ruusmann
+ *
+ * This file is part of JPMML-SkLearn
+ *
+ * JPMML-SkLearn is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-SkLearn is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-SkLearn.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.sklearn;
+
+import com.google.common.hash.HashCode;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ContentCacheTest {
+
+	@Test
+	public void get(){
+		ContentCache<Object> cache = new ContentCache<>(2);
+
+		HashCode firstKey = hash("first");
+		HashCode secondKey = hash("second");
+		HashCode thirdKey = hash("third");
+
+		Object first = cache.get(firstKey, Object::new);
+
+		assertSame(first, cache.get(firstKey, Object::new));
+
+		assertEquals(1L, cache.getHitCount());
+		assertEquals(1L, cache.getMissCount());
+
+		cache.get(secondKey, Object::new);
+
+		// Makes the second entry the least recently used one
+		cache.get(firstKey, Object::new);
+
+		cache.get(thirdKey, Object::new);
+
+		assertEquals(2, cache.size());
+
+		assertSame(first, cache.get(firstKey, Object::new));
+
+		assertEquals(3L, cache.getHitCount());
+		assertEquals(3L, cache.getMissCount());
+
+		cache.get(secondKey, Object::new);
+
+		assertEquals(4L, cache.getMissCount());
+	}
+
+	@Test
+	public void getDisabled(){
+		ContentCache<Object> cache = new ContentCache<>(0);
+
+		assertFalse(cache.isEnabled());
+
+		HashCode key = hash("first");
+
+		assertNotSame(cache.get(key, Object::new), cache.get(key, Object::new));
+
+		assertEquals(0, cache.size());
+
+		assertEquals(0L, cache.getHitCount());
+		assertEquals(0L, cache.getMissCount());
+	}
+
+	@Test
+	public void setCapacity(){
+		ContentCache<Object> cache = new ContentCache<>(0);
+
+		cache.setCapacity(2);
+
+		assertTrue(cache.isEnabled());
+
+		HashCode firstKey = hash("first");
+		HashCode secondKey = hash("second");
+
+		cache.get(firstKey, Object::new);
+
+		Object second = cache.get(secondKey, Object::new);
+
+		assertEquals(2, cache.size());
+
+		cache.setCapacity(1);
+
+		assertEquals(1, cache.size());
+
+		// Keeps the most recently used entry
+		assertSame(second, cache.get(secondKey, Object::new));
+
+		cache.setCapacity(0);
+
+		assertFalse(cache.isEnabled());
+
+		assertEquals(0, cache.size());
+	}
+
+	static
+	private HashCode hash(String string){
+		return ContentCache.hashFunction().newHasher()
+			.putUnencodedChars(string)
+			.hash();
+	}
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2023 Villu Ruusmann
+ *
+ * This file is part of JPMML-SkLearn
+ *
+ * JPMML-SkLearn is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-SkLearn is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-SkLearn.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.sklearn;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import jakarta.xml.bind.JAXBElement;
+import org.dmg.pmml.InlineTable;
+import org.dmg.pmml.PMML;
+import org.dmg.pmml.Row;
+import org.dmg.pmml.Visitor;
+import org.dmg.pmml.VisitorAction;
+import org.dmg.pmml.nearest_neighbor.TrainingInstances;
+import org.jpmml.converter.PMMLUtil;
+import org.jpmml.model.metro.MetroJAXBUtil;
+import org.jpmml.model.visitors.AbstractVisitor;
+import org.jpmml.python.PickleUtil;
+import org.jpmml.python.Storage;
+import org.jpmml.python.StorageUtil;
+import org.junit.Test;
+import sklearn.Estimator;
+import sklearn.neighbors.HasNeighborsOptions;
+import sklearn2pmml.pipeline.PMMLPipeline;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class InlineTableUtilTest {
+
+	@Test
+	public void createInlineTable(){
+		Map<String, List<?>> data = new LinkedHashMap<>();
+		data.put("data:id", Arrays.asList("a", "b", "c"));
+		data.put("data:x1", Arrays.asList(1f, 2.5f, -3f));
+		data.put("data:x2", Arrays.asList(0d, 1d / 3d, 1e-7d));
+
+		List<List<String>> expectedCells = toCells(PMMLUtil.createInlineTable(data));
+
+		assertEquals(expectedCells, toCells(InlineTableUtil.createInlineTable(data, false, false)));
+		assertEquals(expectedCells, toCells(InlineTableUtil.createInlineTable(data, true, false)));
+		assertEquals(expectedCells, toCells(InlineTableUtil.createInlineTable(data, false, true)));
+		assertEquals(expectedCells, toCells(InlineTableUtil.createInlineTable(data, true, true)));
+
+		data.put("data:y", Arrays.asList(1, null, 3));
+
+		expectedCells = toCells(PMMLUtil.createInlineTable(data));
+
+		assertEquals(expectedCells, toCells(InlineTableUtil.createInlineTable(data, false, false)));
+		assertEquals(expectedCells, toCells(InlineTableUtil.createInlineTable(data, true, true)));
+	}
+
+	@Test
+	public void createLazyInlineTable(){
+		Map<String, List<?>> data = new LinkedHashMap<>();
+		data.put("data:x1", Arrays.asList(1d, 2d));
+		data.put("data:x2", Arrays.asList(3d, 4d));
+
+		InlineTable inlineTable = InlineTableUtil.createInlineTable(data, false, true);
+
+		Row row = (inlineTable.getRows()).get(0);
+
+		List<Object> content = row.getContent();
+
+		assertSame(content.get(0), content.get(0));
+
+		JAXBElement<?> element = (JAXBElement<?>)content.remove(1);
+
+		assertEquals(1, content.size());
+
+		content.add(element);
+
+		assertSame(element, content.get(1));
+
+		assertEquals(toCells(PMMLUtil.createInlineTable(data)), toCells(inlineTable));
+	}
+
+	@Test
+	public void encodeLazyTrainingInstances() throws Exception {
+		PMML expectedPmml = encodePMML("KNNHousing", false);
+
+		PMML pmml = encodePMML("KNNHousing", true);
+
+		List<Row> rows = getTrainingInstanceRows(pmml);
+
+		assertEquals(getTrainingInstanceRows(expectedPmml).size(), rows.size());
+
+		// Encoding applies visitors to the whole document
+		for(Row row : rows){
+			assertFalse(InlineTableUtil.isMaterialized(row));
+		}
+
+		assertEquals(marshal(expectedPmml), marshal(pmml));
+
+		for(Row row : rows){
+			assertTrue(InlineTableUtil.isMaterialized(row));
+		}
+	}
+
+	static
+	private PMML encodePMML(String name, boolean lazyCells) throws Exception {
+		// Register Python classes
+		new SkLearnEncoder();
+
+		PMMLPipeline pipeline;
+
+		try(Storage storage = StorageUtil.createStorage(InlineTableUtilTest.class.getResourceAsStream("/pkl/" + name + ".pkl"))){
+			pipeline = (PMMLPipeline)PickleUtil.unpickle(storage);
+		}
+
+		Estimator estimator = pipeline.getFinalEstimator();
+		estimator.putOption(HasNeighborsOptions.OPTION_LAZY_CELLS, lazyCells);
+
+		PMML pmml = pipeline.encodePMML(new SkLearnEncoder());
+
+		// Exclude the timestamp
+		pmml.setHeader(null);
+
+		return pmml;
+	}
+
+	static
+	private List<Row> getTrainingInstanceRows(PMML pmml){
+		List<Row> result = new ArrayList<>();
+
+		Visitor visitor = new AbstractVisitor(){
+
+			@Override
+			public VisitorAction visit(TrainingInstances trainingInstances){
+				InlineTable inlineTable = trainingInstances.requireInlineTable();
+
+				result.addAll(inlineTable.getRows());
+
+				return super.visit(trainingInstances);
+			}
+		};
+		visitor.applyTo(pmml);
+
+		return result;
+	}
+
+	static
+	private String marshal(PMML pmml) throws Exception {
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+
+		MetroJAXBUtil.marshalPMML(pmml, os);
+
+		return os.toString("UTF-8");
+	}
+
+	static
+	private List<List<String>> toCells(InlineTable inlineTable){
+		List<List<String>> result = new ArrayList<>();
+
+		List<Row> rows = inlineTable.getRows();
+		for(Row row : rows){
+			List<String> cells = new ArrayList<>();
+
+			List<Object> content = row.getContent();
+			for(Object object : content){
+				JAXBElement<?> element = (JAXBElement<?>)object;
+
+				cells.add(element.getName() + "=" + element.getValue());
+			}
+
+			result.add(cells);
+		}
+
+		return result;
+	}
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2023 Villu Ruusmann
+ *
+ * This file is part of JPMML-SkLearn
+ *
+ * JPMML-SkLearn is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-SkLearn is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-SkLearn.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.sklearn;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.zip.InflaterInputStream;
+
+import net.razorvine.pickle.IObjectConstructor;
+import net.razorvine.pickle.Unpickler;
+import net.razorvine.pickle.objects.ByteArrayConstructor;
+import numpy.core.NDArray;
+import org.jpmml.python.PickleUtil;
+import org.jpmml.python.PythonObject;
+import org.jpmml.python.Storage;
+import org.jpmml.python.StorageUtil;
+import org.junit.Test;
+import sklearn2pmml.pipeline.PMMLPipeline;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MappedPickleUtilTest {
+
+	@Test
+	public void unpickle() throws Exception {
+		// Register Python classes
+		new SkLearnEncoder();
+
+		PythonObject expectedEstimator;
+
+		try(Storage storage = StorageUtil.createStorage(open("KNNIris"))){
+			expectedEstimator = getFinalEstimator(PickleUtil.unpickle(storage));
+		}
+
+		// Test pickle files are zlib-compressed, whereas memory mapping requires an uncompressed file
+		File file = File.createTempFile("KNNIris", ".pkl");
+		file.deleteOnExit();
+
+		try(InputStream is = new InflaterInputStream(open("KNNIris"))){
+			Files.copy(is, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+
+		PythonObject estimator;
+
+		try(Storage storage = new MappedFileStorage(file, 0)){
+			estimator = getFinalEstimator(MappedPickleUtil.unpickle(storage));
+		}
+
+		Object fitX = estimator.get("_fit_X");
+
+		assertTrue(fitX instanceof MappedNDArray);
+
+		assertArrayEquals(PrimitiveArrayUtil.getDoubleArray(expectedEstimator, "_fit_X"), PrimitiveArrayUtil.getDoubleArray(estimator, "_fit_X"), 0d);
+		assertEquals(((NDArray)expectedEstimator.get("_fit_X")).getContent(), ((NDArray)fitX).getContent());
+	}
+
+	@Test
+	public void unpickleBytes() throws Exception {
+		byte[] bytes = new byte[1000];
+
+		for(int i = 0; i < bytes.length; i++){
+			bytes[i] = (byte)i;
+		}
+
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+
+		// {"bytes": b"...", "bytearray": bytearray(b"...")}
+		os.write(new byte[]{(byte)0x80, 4, '}', '('});
+		writeString(os, "bytes");
+		writeBytes(os, bytes);
+		writeString(os, "bytearray");
+		os.write("cbuiltins\nbytearray\n".getBytes(StandardCharsets.US_ASCII));
+		writeBytes(os, bytes);
+		os.write(new byte[]{(byte)0x85, 'R', 'u', '.'});
+
+		File file = File.createTempFile("Bytes", ".pkl");
+		file.deleteOnExit();
+
+		Files.write(file.toPath(), os.toByteArray());
+
+		Map<?, ?> expectedDict;
+
+		try(Storage storage = new MappedFileStorage(file, bytes.length + 1)){
+			expectedDict = (Map<?, ?>)MappedPickleUtil.unpickle(storage);
+		}
+
+		assertArrayEquals(bytes, (byte[])expectedDict.get("bytes"));
+		assertArrayEquals(bytes, (byte[])expectedDict.get("bytearray"));
+
+		Map<?, ?> dict;
+
+		try(Storage storage = new MappedFileStorage(file, bytes.length)){
+			dict = (Map<?, ?>)MappedPickleUtil.unpickle(storage);
+		}
+
+		assertEquals(ByteBuffer.wrap(bytes), dict.get("bytes"));
+		assertEquals(ByteBuffer.wrap(bytes), dict.get("bytearray"));
+
+		// The global constructor registry is left intact
+		assertEquals(ByteArrayConstructor.class, (ConstructorRegistry.get("builtins", "bytearray")).getClass());
+		assertEquals(ByteArrayConstructor.class, (ConstructorRegistry.get("__builtin__", "bytearray")).getClass());
+	}
+
+	static
+	private void writeString(ByteArrayOutputStream os, String string){
+		byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+
+		// SHORT_BINUNICODE
+		os.write(0x8c);
+		os.write(bytes.length);
+		os.write(bytes, 0, bytes.length);
+	}
+
+	static
+	private void writeBytes(ByteArrayOutputStream os, byte[] bytes){
+		// BINBYTES
+		os.write('B');
+
+		for(int i = 0; i < 4; i++){
+			os.write((bytes.length >>> (8 * i)) & 0xFF);
+		}
+
+		os.write(bytes, 0, bytes.length);
+	}
+
+	static
+	private class ConstructorRegistry extends Unpickler {
+
+		static
+		private IObjectConstructor get(String module, String name){
+			return Unpickler.objectConstructors.get(module + "." + name);
+		}
+	}
+
+	static
+	private InputStream open(String name){
+		return MappedPickleUtilTest.class.getResourceAsStream("/pkl/" + name + ".pkl");
+	}
+
+	static
+	private PythonObject getFinalEstimator(Object object){
+		PMMLPipeline pipeline = (PMMLPipeline)object;
+
+		return (PythonObject)pipeline.getFinalEstimator();
+	}
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2023 Villu Ruusmann
+ *
+ * This file is part of JPMML-SkLearn
+ *
+ * JPMML-SkLearn is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-SkLearn is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-SkLearn.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.sklearn;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.List;
+
+import numpy.core.NDArray;
+import org.jpmml.converter.Matrix;
+import org.jpmml.python.PythonObject;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class PrimitiveArrayUtilTest {
+
+	@Test
+	public void getSimpleArray(){
+		ByteBuffer buffer = ByteBuffer.allocate(3 * 8)
+			.order(ByteOrder.LITTLE_ENDIAN);
+
+		buffer.putDouble(-1.5d);
+		buffer.putDouble(0d);
+		buffer.putDouble(2.5d);
+
+		PythonObject object = new PythonObject("builtins", "object"){};
+		object.put("values", createArray(new Object[]{3}, "<f8", buffer.array()));
+
+		assertArrayEquals(new double[]{-1.5d, 0d, 2.5d}, PrimitiveArrayUtil.getDoubleArray(object, "values"), 0d);
+		assertArrayEquals(new int[]{-1, 0, 2}, PrimitiveArrayUtil.getIntArray(object, "values"));
+
+		buffer = ByteBuffer.allocate(2 * 4)
+			.order(ByteOrder.BIG_ENDIAN);
+
+		buffer.putInt(-1);
+		buffer.putInt(7);
+
+		object.put("values", createArray(new Object[]{2}, ">i4", buffer.array()));
+
+		assertArrayEquals(new int[]{-1, 7}, PrimitiveArrayUtil.getIntArray(object, "values"));
+		assertArrayEquals(new double[]{-1d, 7d}, PrimitiveArrayUtil.getDoubleArray(object, "values"), 0d);
+	}
+
+	@Test
+	public void getStructuredArray(){
+		ByteBuffer buffer = ByteBuffer.allocate(2 * (8 + 8 + 1))
+			.order(ByteOrder.LITTLE_ENDIAN);
+
+		buffer.putLong(1L);
+		buffer.putDouble(0.5d);
+		buffer.put((byte)1);
+
+		buffer.putLong(-1L);
+		buffer.putDouble(-2d);
+		buffer.put((byte)0);
+
+		Object descr = Arrays.asList(new Object[]{"left", "<i8"}, new Object[]{"threshold", "<f8"}, new Object[]{"is_leaf", "|u1"});
+
+		PythonObject object = new PythonObject("builtins", "object"){};
+		object.put("nodes", createArray(new Object[]{2}, descr, buffer.array()));
+
+		assertArrayEquals(new int[]{1, -1}, PrimitiveArrayUtil.getIntArray(object, "nodes", "left"));
+		assertArrayEquals(new double[]{0.5d, -2d}, PrimitiveArrayUtil.getDoubleArray(object, "nodes", "threshold"), 0d);
+		assertArrayEquals(new int[]{1, 0}, PrimitiveArrayUtil.getIntArray(object, "nodes", "is_leaf"));
+
+		assertNull(PrimitiveArrayUtil.getIntArray(object, "nodes", "right"));
+	}
+
+	@Test
+	public void getFieldArrays(){
+		ByteBuffer buffer = ByteBuffer.allocate(2 * (8 + 8 + 1))
+			.order(ByteOrder.LITTLE_ENDIAN);
+
+		buffer.putLong(1L);
+		buffer.putDouble(0.5d);
+		buffer.put((byte)1);
+
+		buffer.putLong(-1L);
+		buffer.putDouble(-2d);
+		buffer.put((byte)0);
+
+		Object descr = Arrays.asList(new Object[]{"left", "<i8"}, new Object[]{"threshold", "<f8"}, new Object[]{"is_leaf", "|u1"});
+
+		PythonObject object = new PythonObject("builtins", "object"){};
+		object.put("nodes", createArray(new Object[]{2}, descr, buffer.array()));
+
+		List<Object> arrays = PrimitiveArrayUtil.getFieldArrays(object, "nodes", Arrays.asList("is_leaf", "right", "threshold", "left"), Arrays.asList(int[].class, int[].class, double[].class, int[].class));
+
+		assertEquals(4, arrays.size());
+
+		assertArrayEquals(new int[]{1, 0}, (int[])arrays.get(0));
+		assertNull(arrays.get(1));
+		assertArrayEquals(new double[]{0.5d, -2d}, (double[])arrays.get(2), 0d);
+		assertArrayEquals(new int[]{1, -1}, (int[])arrays.get(3));
+	}
+
+	@Test
+	public void getNumberMatrix(){
+		ByteBuffer buffer = ByteBuffer.allocate(2 * 3 * 4)
+			.order(ByteOrder.LITTLE_ENDIAN);
+
+		buffer.putFloat(1f);
+		buffer.putFloat(2f);
+		buffer.putFloat(3f);
+
+		buffer.putFloat(4f);
+		buffer.putFloat(5f);
+		buffer.putFloat(6f);
+
+		PythonObject object = new PythonObject("builtins", "object"){};
+		object.put("values", createArray(new Object[]{2, 3}, "<f4", buffer.array()));
+
+		Matrix<? extends Number> matrix = PrimitiveArrayUtil.getNumberMatrix(object, "values");
+
+		assertTrue(matrix instanceof PrimitiveMatrix);
+
+		assertEquals(2, matrix.getRows());
+		assertEquals(3, matrix.getColumns());
+
+		assertEquals(Arrays.asList(1f, 2f, 3f, 4f, 5f, 6f), matrix.getValues());
+		assertEquals(Arrays.asList(4f, 5f, 6f), matrix.getRowValues(1));
+		assertEquals(Arrays.asList(2f, 5f), matrix.getColumnValues(1));
+
+		assertEquals(6d, ((PrimitiveMatrix)matrix).getDouble(1, 2), 0d);
+	}
+
+	static
+	private NDArray createArray(Object[] shape, Object descr, byte[] data){
+		NDArray result = new NDArray();
+		result.__setstate__(new Object[]{1, shape, descr, Boolean.FALSE, data});
+
+		return result;
+	}
+}
\ No newline at end of file
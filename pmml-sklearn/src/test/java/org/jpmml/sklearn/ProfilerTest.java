@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2023 Villu Ruusmann
+ *
+ * This file is part of JPMML-SkLearn
+ *
+ * JPMML-SkLearn is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-SkLearn is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-SkLearn.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.sklearn;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.dmg.pmml.DataType;
+import org.dmg.pmml.MiningFunction;
+import org.dmg.pmml.OpType;
+import org.dmg.pmml.True;
+import org.dmg.pmml.tree.BranchNode;
+import org.dmg.pmml.tree.LeafNode;
+import org.dmg.pmml.tree.Node;
+import org.dmg.pmml.tree.TreeModel;
+import org.jpmml.converter.ContinuousFeature;
+import org.jpmml.converter.Feature;
+import org.junit.Test;
+import sklearn.Transformer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ProfilerTest {
+
+	@Test
+	public void profile(){
+		SkLearnEncoder encoder = new SkLearnEncoder();
+
+		assertNull(Profiler.start(Profiler.PHASE_TRANSFORMER, "inactive", encoder));
+
+		Profiler profiler = new Profiler(true);
+
+		Profiler.setActive(profiler);
+
+		try {
+			Profiler.Step transformerStep = Profiler.start(Profiler.PHASE_TRANSFORMER, "transformer", encoder);
+
+			ContinuousFeature feature = new ContinuousFeature(encoder, encoder.createDataField("x", OpType.CONTINUOUS, DataType.DOUBLE));
+
+			encoder.createDerivedField("x2", OpType.CONTINUOUS, DataType.DOUBLE, feature.ref());
+
+			Profiler.finish(transformerStep);
+
+			Profiler.Step estimatorStep = Profiler.start(Profiler.PHASE_ESTIMATOR, "estimator", encoder);
+
+			Profiler.Step visitorStep = Profiler.start(Profiler.PHASE_VISITOR, "visitor", null);
+
+			Node root = new BranchNode(null, True.INSTANCE)
+				.addNodes(new LeafNode(1, True.INSTANCE), new LeafNode(2, True.INSTANCE));
+
+			TreeModel treeModel = new TreeModel(MiningFunction.REGRESSION, null, root);
+
+			Profiler.finish(visitorStep, treeModel);
+
+			Profiler.finish(estimatorStep, treeModel);
+		} finally {
+			Profiler.setActive(null);
+		}
+
+		List<Profiler.Step> steps = profiler.getSteps();
+
+		assertEquals(3, steps.size());
+
+		Profiler.Step transformerStep = steps.get(0);
+
+		assertEquals(0, transformerStep.getDepth());
+		assertEquals((Integer)1, transformerStep.getDerivedFields());
+		assertNull(transformerStep.getNodes());
+		assertTrue(transformerStep.getWallTime() >= 0L);
+
+		Profiler.Step estimatorStep = steps.get(1);
+
+		assertEquals(0, estimatorStep.getDepth());
+		assertEquals((Integer)0, estimatorStep.getDerivedFields());
+		assertEquals((Integer)3, estimatorStep.getNodes());
+
+		Profiler.Step visitorStep = steps.get(2);
+
+		assertEquals(1, visitorStep.getDepth());
+		assertNull(visitorStep.getDerivedFields());
+		assertEquals((Integer)3, visitorStep.getNodes());
+
+		String json = profiler.toJson();
+
+		assertTrue(json.contains("{\"phase\" : \"visitor\", \"name\" : \"visitor\", \"depth\" : 1, \"wall_time_ns\" : "));
+	}
+
+	@Test
+	public void profileFailure(){
+		Profiler profiler = new Profiler();
+
+		Profiler.setActive(profiler);
+
+		try {
+			Transformer transformer = new Transformer("test", "FailingTransformer"){
+
+				@Override
+				public List<Feature> encodeFeatures(List<Feature> features, SkLearnEncoder encoder){
+					throw new IllegalArgumentException();
+				}
+			};
+
+			try {
+				transformer.encode(Collections.emptyList(), new SkLearnEncoder());
+
+				fail();
+			} catch(IllegalArgumentException iae){
+				// Ignored
+			}
+
+			Profiler.Step estimatorStep = Profiler.start(Profiler.PHASE_ESTIMATOR, "estimator", null);
+
+			TreeModel treeModel = new TreeModel(MiningFunction.REGRESSION, null, new LeafNode(1, True.INSTANCE));
+
+			Profiler.finish(estimatorStep, treeModel);
+		} finally {
+			Profiler.setActive(null);
+		}
+
+		List<Profiler.Step> steps = profiler.getSteps();
+
+		assertEquals(2, steps.size());
+
+		Profiler.Step transformerStep = steps.get(0);
+
+		assertEquals(0, transformerStep.getDepth());
+		assertTrue(transformerStep.getWallTime() >= 0L);
+
+		Profiler.Step estimatorStep = steps.get(1);
+
+		assertEquals(0, estimatorStep.getDepth());
+		assertNull(estimatorStep.getNodes());
+	}
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2023 Villu Ruusmann
+ *
+ * This file is part of JPMML-SkLearn
+ *
+ * JPMML-SkLearn is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-SkLearn is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-SkLearn.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.sklearn;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.dmg.pmml.Extension;
+import org.dmg.pmml.TableLocator;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class TableLocatorUtilTest {
+
+	@Test
+	public void createTableLocator() throws Exception {
+		Map<String, List<?>> data = new LinkedHashMap<>();
+		data.put("data:id", Arrays.asList("a", "b,c", "\"d\""));
+		data.put("data:x1", Arrays.asList(1f, 2.5f, null));
+		data.put("data:y", Arrays.asList(0, 1, 2));
+
+		File dir = (Files.createTempDirectory("TableLocatorUtilTest")).toFile();
+		dir.deleteOnExit();
+
+		File file = new File(dir, "TrainingInstances.csv");
+		file.deleteOnExit();
+
+		TableLocator tableLocator = TableLocatorUtil.createTableLocator(data, dir, "./TrainingInstances.csv");
+
+		List<Extension> extensions = tableLocator.getExtensions();
+
+		assertEquals(2, extensions.size());
+
+		assertEquals(TableLocatorUtil.EXTENSION_LOCATION, (extensions.get(0)).getName());
+		assertEquals("TrainingInstances.csv", (extensions.get(0)).getValue());
+		assertEquals(TableLocatorUtil.EXTENSION_FORMAT, (extensions.get(1)).getName());
+		assertEquals(TableLocatorUtil.FORMAT_CSV, (extensions.get(1)).getValue());
+
+		List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+
+		assertEquals(Arrays.asList("data:id,data:x1,data:y", "a,1.0,0", "\"b,c\",2.5,1", "\"\"\"d\"\"\",,2"), lines);
+
+		for(String location : Arrays.asList(file.getAbsolutePath(), "../TrainingInstances.csv", "data/../../TrainingInstances.csv", ".")){
+
+			try {
+				TableLocatorUtil.createTableLocator(data, dir, location);
+
+				fail(location);
+			} catch(IllegalArgumentException iae){
+				// Ignored
+			}
+		}
+
+		try {
+			TableLocatorUtil.createTableLocator(data, "TrainingInstances.csv");
+
+			fail();
+		} catch(IllegalStateException ise){
+			// Ignored
+		}
+	}
+}
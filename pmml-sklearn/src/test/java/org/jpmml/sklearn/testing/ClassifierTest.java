@@ -18,6 +18,9 @@
  */
 package org.jpmml.sklearn.testing;
 
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.function.Predicate;
 
 import com.google.common.base.Equivalence;
@@ -25,12 +28,15 @@ import org.jpmml.converter.FieldNamePrefixes;
 import org.jpmml.converter.FieldNameUtil;
 import org.jpmml.converter.testing.Datasets;
 import org.jpmml.converter.testing.Fields;
+import org.jpmml.converter.testing.OptionsUtil;
 import org.jpmml.evaluator.ResultField;
 import org.jpmml.evaluator.testing.PMMLEquivalence;
 import org.jpmml.model.visitors.VisitorBattery;
 import org.jpmml.sklearn.FieldNames;
 import org.junit.Test;
 import sklearn.Estimator;
+import sklearn.ensemble.hist_gradient_boosting.HasHistGradientBoostingOptions;
+import sklearn.tree.HasTreeOptions;
 
 public class ClassifierTest extends ValidatingSkLearnEncoderBatchTest implements SkLearnAlgorithms, Datasets, Fields {
 
@@ -52,6 +58,30 @@ public class ClassifierTest extends ValidatingSkLearnEncoderBatchTest implements
 				return path;
 			}
 
+			@Override
+			public List<Map<String, Object>> getOptionsMatrix(){
+				String algorithm = getAlgorithm();
+
+				if((RANDOM_FOREST).equals(algorithm)){
+					Map<String, Object> options = new LinkedHashMap<>();
+					options.put(HasTreeOptions.OPTION_DEDUPLICATE, new Boolean[]{false, true});
+					options.put(HasTreeOptions.OPTION_FREQUENCY_ORDER, new Boolean[]{false, true});
+					options.put(HasTreeOptions.OPTION_PARALLEL, new Boolean[]{false, true});
+
+					return OptionsUtil.generateOptionsMatrix(options);
+				}
+
+				if((HIST_GRADIENT_BOOSTING).equals(algorithm)){
+					Map<String, Object> options = new LinkedHashMap<>();
+					options.put(HasHistGradientBoostingOptions.OPTION_BIN_INDEX, new Boolean[]{false, true});
+					options.put(HasHistGradientBoostingOptions.OPTION_PARALLEL, new Boolean[]{false, true});
+
+					return OptionsUtil.generateOptionsMatrix(options);
+				}
+
+				return super.getOptionsMatrix();
+			}
+
 			@Override
 			public VisitorBattery getValidators(){
 				VisitorBattery visitorBattery = super.getValidators();
@@ -18,17 +18,23 @@
  */
 package org.jpmml.sklearn.testing;
 
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.function.Predicate;
 
 import com.google.common.base.Equivalence;
 import org.jpmml.converter.FieldNameUtil;
 import org.jpmml.converter.testing.Datasets;
 import org.jpmml.converter.testing.Fields;
+import org.jpmml.converter.testing.OptionsUtil;
 import org.jpmml.evaluator.ResultField;
 import org.jpmml.model.visitors.VisitorBattery;
 import org.jpmml.sklearn.FieldNames;
 import org.junit.Test;
 import sklearn.Estimator;
+import sklearn.ensemble.hist_gradient_boosting.HasHistGradientBoostingOptions;
+import sklearn.tree.HasTreeOptions;
 
 public class RegressorTest extends ValidatingSkLearnEncoderBatchTest implements SkLearnAlgorithms, Datasets, Fields {
 
@@ -41,6 +47,28 @@ public class RegressorTest extends ValidatingSkLearnEncoderBatchTest implements
 				return RegressorTest.this;
 			}
 
+			@Override
+			public List<Map<String, Object>> getOptionsMatrix(){
+				String algorithm = getAlgorithm();
+
+				if((DECISION_TREE).equals(algorithm) || (GRADIENT_BOOSTING).equals(algorithm)){
+					Map<String, Object> options = new LinkedHashMap<>();
+					options.put(HasTreeOptions.OPTION_FREQUENCY_ORDER, new Boolean[]{false, true});
+
+					return OptionsUtil.generateOptionsMatrix(options);
+				}
+
+				if((HIST_GRADIENT_BOOSTING).equals(algorithm)){
+					Map<String, Object> options = new LinkedHashMap<>();
+					options.put(HasHistGradientBoostingOptions.OPTION_BIN_INDEX, new Boolean[]{false, true});
+					options.put(HasHistGradientBoostingOptions.OPTION_PARALLEL, new Boolean[]{false, true});
+
+					return OptionsUtil.generateOptionsMatrix(options);
+				}
+
+				return super.getOptionsMatrix();
+			}
+
 			@Override
 			public VisitorBattery getValidators(){
 				VisitorBattery visitorBattery = super.getValidators();
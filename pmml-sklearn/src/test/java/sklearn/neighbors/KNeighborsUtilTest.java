@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2023 Villu Ruusmann
+ *
+ * This file is part of JPMML-SkLearn
+ *
+ * JPMML-SkLearn is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-SkLearn is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-SkLearn.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package sklearn.neighbors;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.primitives.Ints;
+import jakarta.xml.bind.JAXBElement;
+import org.dmg.pmml.Array;
+import org.dmg.pmml.Extension;
+import org.dmg.pmml.InlineTable;
+import org.dmg.pmml.PMML;
+import org.dmg.pmml.Row;
+import org.dmg.pmml.VisitorAction;
+import org.dmg.pmml.nearest_neighbor.TrainingInstances;
+import org.jpmml.converter.ValueUtil;
+import org.jpmml.model.visitors.AbstractVisitor;
+import org.jpmml.python.PickleUtil;
+import org.jpmml.python.Storage;
+import org.jpmml.python.StorageUtil;
+import org.jpmml.sklearn.SkLearnEncoder;
+import org.junit.Test;
+import sklearn.Estimator;
+import sklearn2pmml.pipeline.PMMLPipeline;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+public class KNeighborsUtilTest {
+
+	@Test
+	public void encodeKDTree() throws Exception {
+		checkBinaryTree("KNNIris", "kd_tree", Arrays.asList("lower", "upper"));
+	}
+
+	@Test
+	public void encodeBallTree() throws Exception {
+		checkBinaryTree("NearestNeighborsWheat", "ball_tree", Arrays.asList("centroid"));
+	}
+
+	static
+	private void checkBinaryTree(String name, String type, List<String> boundNames) throws Exception {
+		// Register Python classes
+		new SkLearnEncoder();
+
+		PMMLPipeline pipeline;
+
+		try(Storage storage = StorageUtil.createStorage(open(name))){
+			pipeline = (PMMLPipeline)PickleUtil.unpickle(storage);
+		}
+
+		Estimator estimator = pipeline.getFinalEstimator();
+
+		BinaryTree tree = ((HasTrainingData)estimator).getTree();
+
+		assertNotNull(tree);
+
+		int numberOfNodes = tree.getNumberOfNodes();
+		int leafSize = tree.getLeafSize();
+
+		int[] idxArray = tree.getIdxArray();
+		int[] idxStart = tree.getIdxStart();
+		int[] idxEnd = tree.getIdxEnd();
+		int[] isLeaf = tree.getIsLeaf();
+		double[] radius = tree.getRadius();
+		double[] nodeBounds = tree.getNodeBounds();
+
+		int numberOfFeatures = (tree.getNodeBoundsShape())[2];
+
+		estimator.putOption(HasNeighborsOptions.OPTION_BINARY_TREE, Boolean.TRUE);
+
+		PMML pmml = pipeline.encodePMML(new SkLearnEncoder());
+
+		Extension extension = getBinaryTreeExtension(pmml);
+
+		assertEquals(KNeighborsUtil.EXTENSION_BINARY_TREE, extension.getName());
+		assertEquals(type, extension.getValue());
+
+		List<Object> content = extension.getContent();
+
+		assertEquals(3, content.size());
+
+		Extension leafSizeExtension = (Extension)content.get(0);
+
+		assertEquals("leaf_size", leafSizeExtension.getName());
+		assertEquals(String.valueOf(leafSize), leafSizeExtension.getValue());
+
+		Extension idxArrayExtension = (Extension)content.get(1);
+
+		assertEquals("idx_array", idxArrayExtension.getName());
+
+		Array array = (Array)(idxArrayExtension.getContent()).get(0);
+
+		assertEquals(Ints.asList(idxArray), new ArrayList<>((Collection<?>)array.getValue()));
+
+		Extension nodesExtension = (Extension)content.get(2);
+
+		assertEquals("nodes", nodesExtension.getName());
+
+		List<Map<String, String>> rows = toRows((InlineTable)(nodesExtension.getContent()).get(0));
+
+		assertEquals(numberOfNodes, rows.size());
+
+		for(int node = 0; node < numberOfNodes; node++){
+			Map<String, String> row = rows.get(node);
+
+			assertEquals(4 + boundNames.size() * numberOfFeatures, row.size());
+
+			assertEquals(ValueUtil.asString(idxStart[node]), row.get("idx_start"));
+			assertEquals(ValueUtil.asString(idxEnd[node]), row.get("idx_end"));
+			assertEquals(ValueUtil.asString(isLeaf[node]), row.get("is_leaf"));
+			assertEquals(ValueUtil.asString(radius[node]), row.get("radius"));
+
+			// The node bounds array has shape (n_bounds, n_nodes, n_features)
+			for(int i = 0; i < boundNames.size(); i++){
+
+				for(int j = 0; j < numberOfFeatures; j++){
+					double bound = nodeBounds[(i * numberOfNodes * numberOfFeatures) + (node * numberOfFeatures) + j];
+
+					assertEquals(ValueUtil.asString(bound), row.get(boundNames.get(i) + (j + 1)));
+				}
+			}
+		}
+	}
+
+	static
+	private Extension getBinaryTreeExtension(PMML pmml){
+		List<Extension> result = new ArrayList<>();
+
+		AbstractVisitor visitor = new AbstractVisitor(){
+
+			@Override
+			public VisitorAction visit(TrainingInstances trainingInstances){
+
+				if(trainingInstances.hasExtensions()){
+					result.addAll(trainingInstances.getExtensions());
+				}
+
+				return super.visit(trainingInstances);
+			}
+		};
+		visitor.applyTo(pmml);
+
+		assertEquals(1, result.size());
+
+		return result.get(0);
+	}
+
+	static
+	private List<Map<String, String>> toRows(InlineTable inlineTable){
+		List<Map<String, String>> result = new ArrayList<>();
+
+		List<Row> rows = inlineTable.getRows();
+		for(Row row : rows){
+			Map<String, String> cells = new LinkedHashMap<>();
+
+			List<Object> content = row.getContent();
+			for(Object object : content){
+				JAXBElement<?> element = (JAXBElement<?>)object;
+
+				cells.put((element.getName()).getLocalPart(), (String)element.getValue());
+			}
+
+			result.add(cells);
+		}
+
+		return result;
+	}
+
+	static
+	private InputStream open(String name){
+		return KNeighborsUtilTest.class.getResourceAsStream("/pkl/" + name + ".pkl");
+	}
+}
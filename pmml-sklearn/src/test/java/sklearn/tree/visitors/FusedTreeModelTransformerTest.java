@@ -0,0 +1,614 @@
+/*
+ * Copyright (c) 2023 Villu Ruusmann
+ *
+ * This file is part of JPMML-SkLearn
+ *
+ * JPMML-SkLearn is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-SkLearn is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-SkLearn.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package sklearn.tree.visitors;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.dmg.pmml.ComplexScoreDistribution;
+import org.dmg.pmml.MiningFunction;
+import org.dmg.pmml.PMML;
+import org.dmg.pmml.Predicate;
+import org.dmg.pmml.ScoreDistribution;
+import org.dmg.pmml.SimplePredicate;
+import org.dmg.pmml.True;
+import org.dmg.pmml.Visitable;
+import org.dmg.pmml.Visitor;
+import org.dmg.pmml.VisitorAction;
+import org.dmg.pmml.tree.BranchNode;
+import org.dmg.pmml.tree.ClassifierNode;
+import org.dmg.pmml.tree.LeafNode;
+import org.dmg.pmml.tree.Node;
+import org.dmg.pmml.tree.TreeModel;
+import org.jpmml.model.visitors.AbstractVisitor;
+import org.jpmml.python.PickleUtil;
+import org.jpmml.python.Storage;
+import org.jpmml.python.StorageUtil;
+import org.jpmml.sklearn.SkLearnEncoder;
+import org.junit.Test;
+import sklearn.Estimator;
+import sklearn.tree.HasTreeOptions;
+import sklearn2pmml.pipeline.PMMLPipeline;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+
+public class FusedTreeModelTransformerTest {
+
+	@Test
+	public void transform(){
+		boolean[][] flags = {
+			{true, false, false},
+			{false, true, false},
+			{false, false, true},
+			{true, true, false},
+			{true, false, true},
+			{true, true, true}
+		};
+
+		for(boolean[] flag : flags){
+			TreeModel expectedTreeModel = createTreeModel();
+
+			if(flag[0]){
+				(new TreeModelPruner()).applyTo(expectedTreeModel);
+			} // End if
+
+			if(flag[1]){
+				(new TreeModelCompactor()).applyTo(expectedTreeModel);
+			} // End if
+
+			if(flag[2]){
+				(new TreeModelFlattener()).applyTo(expectedTreeModel);
+			}
+
+			TreeModel treeModel = createTreeModel();
+
+			Visitor treeModelTransformer = new FusedTreeModelTransformer()
+				.setPrune(flag[0])
+				.setCompact(flag[1])
+				.setFlat(flag[2]);
+
+			treeModelTransformer.applyTo(treeModel);
+
+			assertEquals(expectedTreeModel.getSplitCharacteristic(), treeModel.getSplitCharacteristic());
+			assertEquals(expectedTreeModel.getNoTrueChildStrategy(), treeModel.getNoTrueChildStrategy());
+
+			assertEquals(format(expectedTreeModel.getNode()), format(treeModel.getNode()));
+		}
+
+		TreeModel treeModel = createTreeModel();
+
+		String string = format(treeModel.getNode());
+
+		(new FusedTreeModelTransformer().setCleanNodeId(true)).applyTo(treeModel);
+
+		assertNotEquals(string, format(treeModel.getNode()));
+		assertEquals(string.replaceAll("#[0-9]+", "#null"), format(treeModel.getNode()));
+	}
+
+	@Test
+	public void transformClassification(){
+		// The flattener does not collapse children into scored parent nodes
+		boolean[][] flags = {
+			{true, false, false, false, false},
+			{true, false, false, false, true},
+			{false, true, false, false, true},
+			{false, true, false, true, false},
+			{true, true, false, true, true}
+		};
+
+		for(boolean[] flag : flags){
+			TreeModel expectedTreeModel = createClassificationTreeModel();
+
+			transformSequentially(expectedTreeModel, flag);
+
+			TreeModel treeModel = createClassificationTreeModel();
+
+			createTransformer(flag).applyTo(treeModel);
+
+			assertEquals(format(expectedTreeModel.getNode()), format(treeModel.getNode()));
+		}
+
+		TreeModel treeModel = createClassificationTreeModel();
+
+		(new FusedTreeModelTransformer().setCleanNodeScore(true)).applyTo(treeModel);
+
+		Node root = treeModel.getNode();
+
+		assertNull(root.getScore());
+		assertFalse(root.hasScoreDistributions());
+
+		for(Node child : root.getNodes()){
+
+			if(child.hasNodes()){
+				assertNull(child.getScore());
+				assertFalse(child.hasScoreDistributions());
+			}
+		}
+	}
+
+	@Test
+	public void transformPickled() throws Exception {
+		boolean[][] flags = {
+			{true, true, false, true, true},
+			{true, false, true, false, true},
+			{true, true, true, true, false}
+		};
+
+		for(String name : Arrays.asList("RandomForestIris", "GradientBoostingAuto")){
+
+			for(boolean[] flag : flags){
+				PMML expectedPmml = encode(name);
+
+				transformSequentially(expectedPmml, flag);
+
+				PMML pmml = encode(name);
+
+				createTransformer(flag).applyTo(pmml);
+
+				assertEquals(formatTreeModels(expectedPmml), formatTreeModels(pmml));
+			}
+		}
+	}
+
+	@Test
+	public void transformFrequencyOrdered(){
+		boolean[][] flags = {
+			{false, true, false},
+			{false, true, true},
+			{true, true, true}
+		};
+
+		for(boolean[] flag : flags){
+			TreeModel expectedTreeModel = createTreeModel();
+			TreeModel treeModel = createTreeModel();
+
+			reverse(treeModel.getNode());
+
+			for(TreeModel model : Arrays.asList(expectedTreeModel, treeModel)){
+				Visitor treeModelTransformer = new FusedTreeModelTransformer()
+					.setPrune(flag[0])
+					.setCompact(flag[1])
+					.setFlat(flag[2]);
+
+				treeModelTransformer.applyTo(model);
+			}
+
+			assertEquals(format(expectedTreeModel.getNode()), format(treeModel.getNode()));
+		}
+	}
+
+	@Test
+	public void flattenFrequencyOrdered(){
+		TreeModel expectedTreeModel = createThresholdTreeModel();
+		TreeModel treeModel = createThresholdTreeModel();
+
+		reverse(treeModel.getNode());
+
+		for(TreeModel model : Arrays.asList(expectedTreeModel, treeModel)){
+			(new TreeModelFlattener()).applyTo(model);
+
+			assertEquals(3, (model.getNode()).getNodes().size());
+		}
+
+		for(int x = 0; x <= 10; x++){
+			assertEquals(evaluate(expectedTreeModel.getNode(), x), evaluate(treeModel.getNode(), x));
+		}
+	}
+
+	static
+	private TreeModel createTreeModel(){
+		Node root = split(0, 5d, True.INSTANCE,
+			split(1, 5d, null,
+				split(3, 4d, null,
+					leaf(7, 4d),
+					leaf(8, 4d)
+				),
+				split(4, 6d, null,
+					leaf(9, 5d),
+					leaf(10, 7d)
+				)
+			),
+			split(2, 3d, null,
+				leaf(5, 2d),
+				split(6, 4d, null,
+					leaf(11, 4d),
+					leaf(12, 4d)
+				)
+			)
+		);
+
+		assign(root);
+
+		return new TreeModel(MiningFunction.REGRESSION, null, root)
+			.setSplitCharacteristic(TreeModel.SplitCharacteristic.BINARY_SPLIT);
+	}
+
+	/**
+	 * Mixes nodes with and without ScoreDistributions, so that only some of the subtrees can be pruned.
+	 * The Pruner skips the subtrees of nodes that have ScoreDistributions.
+	 */
+	static
+	private TreeModel createClassificationTreeModel(){
+		Node root = classifierSplit(0, "yes", false,
+			classifierSplit(1, "no", true,
+				classifierSplit(3, "no", false,
+					classifierLeaf(9, "no", false),
+					classifierLeaf(10, "no", false)
+				),
+				classifierLeaf(4, "yes", true)
+			),
+			classifierSplit(2, "yes", false,
+				classifierLeaf(5, "yes", false),
+				classifierSplit(6, null, false,
+					classifierLeaf(7, "yes", false),
+					classifierLeaf(8, "yes", false)
+				)
+			)
+		);
+
+		root.setPredicate(True.INSTANCE);
+
+		assign(root);
+
+		return new TreeModel(MiningFunction.CLASSIFICATION, null, root)
+			.setSplitCharacteristic(TreeModel.SplitCharacteristic.BINARY_SPLIT);
+	}
+
+	static
+	private TreeModel createThresholdTreeModel(){
+		Node root = split(0, 5d, True.INSTANCE,
+			split(1, 3d, null,
+				leaf(3, 1d),
+				leaf(4, 2d)
+			),
+			split(2, 7d, null,
+				leaf(5, 3d),
+				leaf(6, 4d)
+			)
+		);
+
+		assignThresholds(root);
+
+		return new TreeModel(MiningFunction.REGRESSION, null, root)
+			.setSplitCharacteristic(TreeModel.SplitCharacteristic.BINARY_SPLIT);
+	}
+
+	static
+	private Node split(int id, double score, Predicate predicate, Node left, Node right){
+		return new BranchNode(score, predicate)
+			.setId(id)
+			.addNodes(left, right);
+	}
+
+	static
+	private Node leaf(int id, double score){
+		return new LeafNode(score, null)
+			.setId(id);
+	}
+
+	static
+	private Node classifierSplit(int id, Object score, boolean scoreDistributions, Node left, Node right){
+		Node node = new ClassifierNode(score, null)
+			.setId(id)
+			.addNodes(left, right);
+
+		if(scoreDistributions){
+			addScoreDistributions(node, id);
+		}
+
+		return node;
+	}
+
+	static
+	private Node classifierLeaf(int id, Object score, boolean scoreDistributions){
+		Node node = new ClassifierNode(score, null)
+			.setId(id);
+
+		if(scoreDistributions){
+			addScoreDistributions(node, id);
+		}
+
+		return node;
+	}
+
+	static
+	private void addScoreDistributions(Node node, int id){
+		node.addScoreDistributions(
+			new ComplexScoreDistribution("no", 10d + id),
+			new ComplexScoreDistribution("yes", 10d - id)
+		);
+	}
+
+	/**
+	 * Applies the separate Visitors one after another.
+	 */
+	static
+	private void transformSequentially(Visitable visitable, boolean[] flag){
+		List<Visitor> visitors = new ArrayList<>();
+
+		if(flag[0]){
+			visitors.add(new TreeModelPruner());
+		} // End if
+
+		if(flag[1]){
+			visitors.add(new TreeModelCompactor());
+		} // End if
+
+		if(flag[2]){
+			visitors.add(new TreeModelFlattener());
+		} // End if
+
+		if(flag[3]){
+			Visitor nodeIdCleaner = new AbstractVisitor(){
+
+				@Override
+				public VisitorAction visit(Node node){
+					node.setId(null);
+
+					return super.visit(node);
+				}
+			};
+
+			visitors.add(nodeIdCleaner);
+		} // End if
+
+		if(flag[4]){
+			Visitor nodeScoreCleaner = new AbstractVisitor(){
+
+				@Override
+				public VisitorAction visit(Node node){
+
+					if(node.hasNodes()){
+						node.setScore(null);
+
+						if(node.hasScoreDistributions()){
+							List<ScoreDistribution> scoreDistributions = node.getScoreDistributions();
+
+							scoreDistributions.clear();
+						}
+					}
+
+					return super.visit(node);
+				}
+			};
+
+			visitors.add(nodeScoreCleaner);
+		}
+
+		for(Visitor visitor : visitors){
+			visitor.applyTo(visitable);
+		}
+	}
+
+	static
+	private Visitor createTransformer(boolean[] flag){
+		return new FusedTreeModelTransformer()
+			.setPrune(flag[0])
+			.setCompact(flag[1])
+			.setFlat(flag[2])
+			.setCleanNodeId(flag[3])
+			.setCleanNodeScore(flag[4]);
+	}
+
+	/**
+	 * Encodes tree models with node ids, and without any tree model transformations.
+	 */
+	static
+	private PMML encode(String name) throws Exception {
+		// Register Python classes
+		new SkLearnEncoder();
+
+		PMMLPipeline pipeline;
+
+		try(Storage storage = StorageUtil.createStorage(FusedTreeModelTransformerTest.class.getResourceAsStream("/pkl/" + name + ".pkl"))){
+			pipeline = (PMMLPipeline)PickleUtil.unpickle(storage);
+		}
+
+		Estimator estimator = pipeline.getFinalEstimator();
+
+		// Override the options that have been pickled with the estimator
+		estimator.putOption(HasTreeOptions.OPTION_COMPACT, Boolean.FALSE);
+		estimator.putOption(HasTreeOptions.OPTION_FLAT, Boolean.FALSE);
+		estimator.putOption(HasTreeOptions.OPTION_PRUNE, Boolean.FALSE);
+		estimator.putOption(HasTreeOptions.OPTION_NODE_ID, Boolean.TRUE);
+
+		return pipeline.encodePMML(new SkLearnEncoder());
+	}
+
+	static
+	private List<String> formatTreeModels(PMML pmml){
+		List<String> result = new ArrayList<>();
+
+		Visitor treeModelFormatter = new AbstractVisitor(){
+
+			@Override
+			public VisitorAction visit(TreeModel treeModel){
+				result.add(treeModel.getMissingValueStrategy() + " " + treeModel.getNoTrueChildStrategy() + " " + treeModel.getSplitCharacteristic() + " " + format(treeModel.getNode()));
+
+				return VisitorAction.SKIP;
+			}
+		};
+		treeModelFormatter.applyTo(pmml);
+
+		return result;
+	}
+
+	/**
+	 * Splits the same field on every level, so that the flattener has something to flatten.
+	 */
+	static
+	private void assign(Node node){
+
+		if(!node.hasNodes()){
+			return;
+		}
+
+		List<Node> children = node.getNodes();
+
+		Node left = children.get(0);
+		Node right = children.get(1);
+
+		String field = ((Integer)node.getId() % 3 == 2) ? "y" : "x";
+		Object value = node.getId();
+
+		left.setPredicate(new SimplePredicate(field, SimplePredicate.Operator.LESS_OR_EQUAL, value));
+		right.setPredicate(new SimplePredicate(field, SimplePredicate.Operator.GREATER_THAN, value));
+
+		for(Node child : Arrays.asList(left, right)){
+			assign(child);
+		}
+	}
+
+	/**
+	 * Splits the same field on every level, using the score of the node as the threshold value.
+	 */
+	static
+	private void assignThresholds(Node node){
+
+		if(!node.hasNodes()){
+			return;
+		}
+
+		List<Node> children = node.getNodes();
+
+		Node left = children.get(0);
+		Node right = children.get(1);
+
+		Object value = node.getScore();
+
+		left.setPredicate(new SimplePredicate("x", SimplePredicate.Operator.LESS_OR_EQUAL, value));
+		right.setPredicate(new SimplePredicate("x", SimplePredicate.Operator.GREATER_THAN, value));
+
+		for(Node child : Arrays.asList(left, right)){
+			assignThresholds(child);
+		}
+	}
+
+	/**
+	 * Emits the second child of every binary split first, the same as the frequency order option does.
+	 */
+	static
+	private Node reverse(Node node){
+
+		if(node.hasNodes()){
+			List<Node> children = node.getNodes();
+
+			Collections.reverse(children);
+
+			for(Node child : children){
+				reverse(child);
+			}
+		}
+
+		return node;
+	}
+
+	/**
+	 * Evaluates the first matching child on every level.
+	 */
+	static
+	private Object evaluate(Node node, double x){
+
+		if(!node.hasNodes()){
+			return node.getScore();
+		}
+
+		List<Node> children = node.getNodes();
+
+		for(Node child : children){
+			Predicate predicate = child.requirePredicate();
+
+			boolean matches;
+
+			if(predicate instanceof SimplePredicate){
+				SimplePredicate simplePredicate = (SimplePredicate)predicate;
+
+				double value = ((Number)simplePredicate.getValue()).doubleValue();
+
+				switch(simplePredicate.requireOperator()){
+					case LESS_OR_EQUAL:
+						matches = (x <= value);
+						break;
+					case GREATER_THAN:
+						matches = (x > value);
+						break;
+					default:
+						throw new IllegalArgumentException();
+				}
+			} else
+
+			{
+				matches = (predicate instanceof True);
+			} // End if
+
+			if(matches){
+				return evaluate(child, x);
+			}
+		}
+
+		return null;
+	}
+
+	static
+	private String format(Node node){
+		StringBuilder sb = new StringBuilder();
+
+		sb.append("#").append(node.getId()).append(" ");
+
+		Predicate predicate = node.requirePredicate();
+		if(predicate instanceof SimplePredicate){
+			SimplePredicate simplePredicate = (SimplePredicate)predicate;
+
+			sb.append(simplePredicate.requireField()).append(" ").append(simplePredicate.requireOperator()).append(" ").append(simplePredicate.getValue());
+		} else
+
+		{
+			sb.append(predicate.getClass().getSimpleName());
+		}
+
+		sb.append(" -> ").append(node.getScore());
+
+		if(node.hasScoreDistributions()){
+			sb.append(" {");
+
+			for(ScoreDistribution scoreDistribution : node.getScoreDistributions()){
+				sb.append(scoreDistribution.requireValue()).append(":").append(scoreDistribution.getRecordCount()).append(", ");
+			}
+
+			sb.append("}");
+		}
+
+		if(node.hasNodes()){
+			sb.append(" [");
+
+			for(Node child : node.getNodes()){
+				sb.append(format(child)).append(", ");
+			}
+
+			sb.append("]");
+		}
+
+		return sb.toString();
+	}
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2023 Villu Ruusmann
+ *
+ * This file is part of JPMML-SkLearn
+ *
+ * JPMML-SkLearn is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-SkLearn is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-SkLearn.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package sklearn.tree.visitors;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.dmg.pmml.ComplexScoreDistribution;
+import org.dmg.pmml.Extension;
+import org.dmg.pmml.MiningFunction;
+import org.dmg.pmml.ScoreDistribution;
+import org.dmg.pmml.SimplePredicate;
+import org.dmg.pmml.True;
+import org.dmg.pmml.mining.MiningModel;
+import org.dmg.pmml.mining.Segment;
+import org.dmg.pmml.mining.Segmentation;
+import org.dmg.pmml.tree.BranchNode;
+import org.dmg.pmml.tree.ClassifierNode;
+import org.dmg.pmml.tree.ComplexNode;
+import org.dmg.pmml.tree.LeafNode;
+import org.dmg.pmml.tree.Node;
+import org.dmg.pmml.tree.TreeModel;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class TreeModelDeduplicatorTest {
+
+	@Test
+	public void deduplicate(){
+		SimplePredicate lowPredicate = new SimplePredicate("x", SimplePredicate.Operator.LESS_OR_EQUAL, 1d);
+		SimplePredicate highPredicate = new SimplePredicate("x", SimplePredicate.Operator.GREATER_THAN, 1d);
+
+		TreeModel firstTreeModel = createTreeModel(lowPredicate, highPredicate, 2d);
+		TreeModel secondTreeModel = createTreeModel(lowPredicate, highPredicate, 2d);
+		TreeModel thirdTreeModel = createTreeModel(lowPredicate, highPredicate, 3d);
+
+		MiningModel miningModel = new MiningModel(MiningFunction.REGRESSION, null)
+			.setSegmentation(new Segmentation(Segmentation.MultipleModelMethod.SUM, null)
+				.addSegments(
+					new Segment(True.INSTANCE, firstTreeModel),
+					new Segment(True.INSTANCE, secondTreeModel),
+					new Segment(True.INSTANCE, thirdTreeModel)
+				)
+			);
+
+		TreeModelDeduplicator treeModelDeduplicator = new TreeModelDeduplicator();
+		treeModelDeduplicator.applyTo(miningModel);
+
+		// The second tree is shared as a whole, the third tree shares its first leaf
+		assertEquals(3 + 1, treeModelDeduplicator.getSharedCount());
+
+		assertSame(firstTreeModel.getNode(), secondTreeModel.getNode());
+		assertNotSame(firstTreeModel.getNode(), thirdTreeModel.getNode());
+
+		List<Node> firstChildren = (firstTreeModel.getNode()).getNodes();
+		List<Node> thirdChildren = (thirdTreeModel.getNode()).getNodes();
+
+		assertSame(firstChildren.get(0), thirdChildren.get(0));
+		assertNotSame(firstChildren.get(1), thirdChildren.get(1));
+	}
+
+	@Test
+	public void deduplicateNodeContent(){
+		ScoreDistribution scoreDistribution = new ComplexScoreDistribution("yes", 1d);
+
+		List<Node> nodes = Arrays.asList(
+			new ClassifierNode("yes", True.INSTANCE)
+				.addScoreDistributions(scoreDistribution),
+			new ClassifierNode("yes", True.INSTANCE)
+				.addScoreDistributions(new ComplexScoreDistribution("yes", 1d)),
+			new ClassifierNode("yes", True.INSTANCE)
+				.addScoreDistributions(scoreDistribution)
+				.setRecordCount(1d),
+			new ClassifierNode("yes", True.INSTANCE)
+				.addScoreDistributions(scoreDistribution)
+				.setDefaultChild(1),
+			new ComplexNode("yes", True.INSTANCE)
+				.addExtensions(new Extension()),
+			new ComplexNode("yes", True.INSTANCE)
+				.addExtensions(new Extension())
+		);
+
+		MiningModel miningModel = new MiningModel(MiningFunction.CLASSIFICATION, null)
+			.setSegmentation(new Segmentation(Segmentation.MultipleModelMethod.MAJORITY_VOTE, null));
+
+		Segmentation segmentation = miningModel.getSegmentation();
+
+		for(Node node : nodes){
+			segmentation.addSegments(new Segment(True.INSTANCE, new TreeModel(MiningFunction.CLASSIFICATION, null, node)));
+		}
+
+		TreeModelDeduplicator treeModelDeduplicator = new TreeModelDeduplicator();
+		treeModelDeduplicator.applyTo(miningModel);
+
+		assertEquals(0, treeModelDeduplicator.getSharedCount());
+
+		List<Segment> segments = segmentation.getSegments();
+
+		for(int i = 0; i < nodes.size(); i++){
+			TreeModel treeModel = (TreeModel)(segments.get(i)).getModel();
+
+			assertSame(nodes.get(i), treeModel.getNode());
+		}
+	}
+
+	static
+	private TreeModel createTreeModel(SimplePredicate lowPredicate, SimplePredicate highPredicate, double highScore){
+		Node root = new BranchNode(null, True.INSTANCE)
+			.addNodes(new LeafNode(1d, lowPredicate), new LeafNode(highScore, highPredicate));
+
+		return new TreeModel(MiningFunction.REGRESSION, null, root);
+	}
+}
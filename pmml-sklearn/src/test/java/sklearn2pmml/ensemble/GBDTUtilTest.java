@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2023 Villu Ruusmann
+ *
+ * This file is part of JPMML-SkLearn
+ *
+ * JPMML-SkLearn is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-SkLearn is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-SkLearn.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package sklearn2pmml.ensemble;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+
+import org.dmg.pmml.PMML;
+import org.jpmml.model.metro.MetroJAXBUtil;
+import org.jpmml.python.PickleUtil;
+import org.jpmml.python.Storage;
+import org.jpmml.python.StorageUtil;
+import org.jpmml.sklearn.SkLearnEncoder;
+import org.junit.Test;
+import sklearn.Estimator;
+import sklearn.tree.HasTreeOptions;
+import sklearn2pmml.pipeline.PMMLPipeline;
+
+import static org.junit.Assert.assertEquals;
+
+public class GBDTUtilTest {
+
+	@Test
+	public void encodeGBDTLR() throws Exception {
+		assertEquals(encode("GBDTLRAudit", false), encode("GBDTLRAudit", true));
+		assertEquals(encode("GBDTLRVersicolor", false), encode("GBDTLRVersicolor", true));
+	}
+
+	@Test
+	public void encodeGBDTLM() throws Exception {
+		assertEquals(encode("GBDTLMHousing", false), encode("GBDTLMHousing", true));
+	}
+
+	static
+	private String encode(String name, boolean parallel) throws Exception {
+		// Register Python classes
+		new SkLearnEncoder();
+
+		PMMLPipeline pipeline;
+
+		try(Storage storage = StorageUtil.createStorage(open(name))){
+			pipeline = (PMMLPipeline)PickleUtil.unpickle(storage);
+		}
+
+		Estimator estimator = pipeline.getFinalEstimator();
+
+		Estimator gbdt;
+
+		if(estimator instanceof GBDTLRClassifier){
+			GBDTLRClassifier gbdtlr = (GBDTLRClassifier)estimator;
+
+			gbdt = gbdtlr.getGBDT();
+		} else
+
+		if(estimator instanceof GBDTLMRegressor){
+			GBDTLMRegressor gbdtlm = (GBDTLMRegressor)estimator;
+
+			gbdt = gbdtlm.getGBDT();
+		} else
+
+		{
+			throw new IllegalArgumentException();
+		}
+
+		gbdt.putOption(HasTreeOptions.OPTION_PARALLEL, parallel);
+
+		PMML pmml = pipeline.encodePMML(new SkLearnEncoder());
+
+		// Exclude the timestamp
+		pmml.setHeader(null);
+
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+
+		MetroJAXBUtil.marshalPMML(pmml, os);
+
+		return os.toString("UTF-8");
+	}
+
+	static
+	private InputStream open(String name){
+		return GBDTUtilTest.class.getResourceAsStream("/pkl/" + name + ".pkl");
+	}
+}